@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.bench
+
+import com.ovea.tajin.framework.async.BatchJobRepository
+import com.ovea.tajin.framework.async.DuplicateJobException
+import com.ovea.tajin.framework.async.JobRepository
+import com.ovea.tajin.framework.async.PagedJobRepository
+import com.ovea.tajin.framework.async.TriggeredScheduledJob
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * {@link JobRepository} keeping the pending jobs in memory, with a simulated round-trip latency per call. The jobs
+ * are stored as they are, not copied.
+ *
+ * @date 2026-10-18
+ */
+class InMemoryJobRepository implements BatchJobRepository, PagedJobRepository {
+
+    private final long latencyNanos
+    private final ConcurrentSkipListMap<String, TriggeredScheduledJob> pending = new ConcurrentSkipListMap<>()
+    private final ConcurrentMap<String, String> idByDedupKey = new ConcurrentHashMap<>()
+    private final AtomicLong calls = new AtomicLong()
+
+    /**
+     * @param latencyMicros time spent in each call, like a round-trip to a database
+     */
+    InMemoryJobRepository(long latencyMicros) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros)
+    }
+
+    @Override
+    void insert(TriggeredScheduledJob job) { insertAll([job]) }
+
+    @Override
+    void insertAll(Collection<TriggeredScheduledJob> jobs) {
+        roundTrip()
+        synchronized (this) {
+            for (TriggeredScheduledJob job : jobs) {
+                String dedupKey = job.source.dedupKey
+                String owner = dedupKey ? idByDedupKey.get(dedupKey) : null
+                if (owner && owner != job.id) throw new DuplicateJobException(dedupKey, owner)
+            }
+            jobs.each { put(it) }
+        }
+    }
+
+    @Override
+    void update(TriggeredScheduledJob job) { updateAll([job]) }
+
+    @Override
+    void updateAll(Collection<TriggeredScheduledJob> jobs) {
+        roundTrip()
+        synchronized (this) {
+            jobs.each { it.completionDate ? remove(it) : put(it) }
+        }
+    }
+
+    @Override
+    void delete(Collection<TriggeredScheduledJob> jobs) {
+        roundTrip()
+        synchronized (this) {
+            jobs.each { remove(it) }
+        }
+    }
+
+    @Override
+    Collection<TriggeredScheduledJob> listPendingJobs() {
+        roundTrip()
+        return new ArrayList<TriggeredScheduledJob>(pending.values())
+    }
+
+    @Override
+    List<TriggeredScheduledJob> listPendingJobs(String afterId, int limit) {
+        roundTrip()
+        List<TriggeredScheduledJob> page = []
+        for (TriggeredScheduledJob job : (afterId == null ? pending : pending.tailMap(afterId, false)).values()) {
+            if (page.size() >= limit) {
+                break
+            }
+            page << job
+        }
+        return page
+    }
+
+    @Override
+    Collection<TriggeredScheduledJob> load(Collection<String> ids) {
+        roundTrip()
+        return ids.collect { pending.get(it) }.findAll()
+    }
+
+    int getPendingCount() { pending.size() }
+
+    long getCallCount() { calls.get() }
+
+    private void put(TriggeredScheduledJob job) {
+        pending.put(job.id, job)
+        if (job.source.dedupKey) {
+            idByDedupKey.put(job.source.dedupKey, job.id)
+        }
+    }
+
+    private void remove(TriggeredScheduledJob job) {
+        TriggeredScheduledJob removed = pending.remove(job.id)
+        if (removed?.source?.dedupKey) {
+            idByDedupKey.remove(removed.source.dedupKey, removed.id)
+        }
+    }
+
+    private void roundTrip() {
+        calls.incrementAndGet()
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos)
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.bench
+
+import com.beust.jcommander.DynamicParameter
+import com.beust.jcommander.JCommander
+import com.beust.jcommander.Parameter
+import com.beust.jcommander.ParameterException
+import com.ovea.tajin.framework.async.DefaultJobScheduler
+import com.ovea.tajin.framework.async.ScheduledJob
+import com.ovea.tajin.framework.core.Settings
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Load harness of {@link DefaultJobScheduler}, backed by an {@link InMemoryJobRepository} and a
+ * {@link StubJobListener}. It runs two phases:
+ * <ul>
+ * <li>pending jobs: schedules the jobs one hour ahead, then cancels them, reporting the schedule and cancel
+ * throughputs and the heap used per pending job</li>
+ * <li>firing: schedules the jobs with the chosen delay distribution and waits for them to be done, reporting the
+ * firing throughput and the lateness percentiles</li>
+ * </ul>
+ * Scheduler settings are passed with <code>-S</code>, i.e. <code>-Stajin.async.scheduler.timer=wheel</code>.
+ *
+ * @date 2026-10-18
+ */
+class SchedulerBenchmark {
+
+    // held to keep the level
+    private static final Logger ASYNC_LOGGER = Logger.getLogger('com.ovea.tajin.framework.async')
+
+    static enum Delay {
+        /** all the jobs are due at once */
+        NOW,
+        /** all the jobs are due after the delay */
+        FIXED,
+        /** due between now and the delay */
+        UNIFORM,
+        /** exponentially distributed, the delay being the mean: many short delays and a long tail */
+        EXPONENTIAL
+
+        long next(long millis) {
+            switch (this) {
+                case NOW: return 0
+                case FIXED: return millis
+                case UNIFORM: return (long) (ThreadLocalRandom.current().nextDouble() * millis)
+                default: return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * millis)
+            }
+        }
+    }
+
+    final Options options
+
+    SchedulerBenchmark(Options options) {
+        this.options = options
+    }
+
+    static void main(String... args) {
+        Options options = new Options()
+        JCommander commander = new JCommander()
+        commander.programName = SchedulerBenchmark.name
+        commander.addObject(options)
+        try {
+            commander.parse(args)
+        } catch (ParameterException e) {
+            println e.message
+            commander.usage()
+            System.exit(1)
+        }
+        if (options.help) {
+            commander.usage()
+            System.exit(1)
+        }
+        new SchedulerBenchmark(options).run()
+    }
+
+    void run() {
+        if (!options.verbose) {
+            // the simulated failures are logged as SEVERE
+            ASYNC_LOGGER.level = Level.OFF
+        }
+        println "jobs=${options.jobs} threads=${options.threads} delay=${options.delay}(${options.delayMillis}ms) failureRate=${options.failureRate} work=${options.workMicros}us persisted=${options.persisted} repositoryLatency=${options.repositoryLatencyMicros}us settings=${options.settings}"
+        InMemoryJobRepository repository = new InMemoryJobRepository(options.repositoryLatencyMicros)
+        StubJobListener listener = new StubJobListener(options.failureRate, options.workMicros)
+        DefaultJobScheduler scheduler = new DefaultJobScheduler(repository: repository, listener: listener, settings: new Settings(options.settings))
+        scheduler.init()
+        try {
+            pendingJobs(scheduler)
+            firing(scheduler, repository, listener)
+        } finally {
+            scheduler.shutdown()
+        }
+    }
+
+    private void pendingJobs(DefaultJobScheduler scheduler) {
+        println '-- pending jobs'
+        long heapBefore = usedHeap()
+        long start = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)
+        long time = inParallel(options.jobs) { int i -> scheduler.schedule(job(start)) }
+        report('schedule', options.jobs, time)
+        long heapAfter = usedHeap()
+        println "memory: ${(heapAfter - heapBefore).intdiv(options.jobs)} bytes per pending job (${(heapAfter - heapBefore) >> 20}MB for ${scheduler.scheduledCount} jobs)"
+        List<String> ids = new ArrayList<String>(scheduler.scheduledJobIds)
+        time = inParallel(ids.size()) { int i -> scheduler.cancel(ids[i]) }
+        report('cancel', ids.size(), time)
+    }
+
+    private void firing(DefaultJobScheduler scheduler, InMemoryJobRepository repository, StubJobListener listener) {
+        println '-- firing'
+        scheduler.resetStats()
+        listener.reset()
+        long calls = repository.callCount
+        long started = System.nanoTime()
+        long now = System.currentTimeMillis()
+        long time = inParallel(options.jobs) { int i -> scheduler.schedule(job(now + options.delay.next(options.delayMillis))) }
+        report('schedule', options.jobs, time)
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSecs)
+        while (listener.doneCount < options.jobs && System.nanoTime() < timeout) {
+            Thread.sleep(10)
+        }
+        long elapsed = System.nanoTime() - started
+        if (listener.doneCount < options.jobs) {
+            println "timeout: only ${listener.doneCount} jobs done out of ${options.jobs}"
+        }
+        report('fire', listener.succeededCount + listener.failedCount, elapsed)
+        println "jobs: ${listener.succeededCount} succeeded, ${listener.failedCount} failures, ${scheduler.retryCount} retries, ${scheduler.shedRetryCount} shed retries, ${repository.callCount - calls} repository calls"
+        println "lateness: ${listener.lateness.summary('ms')}"
+        scheduler.jobStats.each { println "stats: ${it}" }
+    }
+
+    private ScheduledJob job(long startDate) {
+        return new ScheduledJob(
+            name: options.jobName,
+            startDate: new Date(startDate),
+            persisted: options.persisted,
+            maxRetry: options.maxRetry,
+            retryDelaySecs: options.retryDelaySecs,
+            data: [payload: 'x' * options.payloadSize])
+    }
+
+    /**
+     * Runs {@code task} for 0 to {@code count - 1} on {@link Options#threads} threads
+     *
+     * @return elapsed time in nanoseconds
+     */
+    private long inParallel(int count, Closure task) {
+        ExecutorService workers = Executors.newFixedThreadPool(options.threads)
+        int chunk = Math.max(1, (count + options.threads - 1).intdiv(options.threads) as int)
+        long started = System.nanoTime()
+        for (int from = 0; from < count; from += chunk) {
+            final int first = from
+            final int last = Math.min(count, from + chunk)
+            workers.execute(new Runnable() {
+                @Override
+                void run() {
+                    for (int i = first; i < last; i++) {
+                        task.call(i)
+                    }
+                }
+            })
+        }
+        workers.shutdown()
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+        return System.nanoTime() - started
+    }
+
+    private static void report(String operation, long count, long nanos) {
+        println String.format('%-9s %9d jobs in %7d ms: %10.0f jobs/s', operation + ':', count, TimeUnit.NANOSECONDS.toMillis(nanos), count * 1e9d / Math.max(1L, nanos))
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.runtime
+        for (int i = 0; i < 3; i++) {
+            System.gc()
+            Thread.sleep(100)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    static class Options {
+
+        @Parameter(names = ['-n', '--jobs'], description = 'Number of jobs per phase')
+        int jobs = 100000
+
+        @Parameter(names = ['-t', '--threads'], description = 'Number of threads scheduling and cancelling the jobs')
+        int threads = 4
+
+        @Parameter(names = ['--name'], description = 'Job name, for the per-name settings')
+        String jobName = 'bench'
+
+        @Parameter(names = ['--delay'], description = 'Distribution of the job delays: NOW, FIXED, UNIFORM or EXPONENTIAL')
+        Delay delay = Delay.UNIFORM
+
+        @Parameter(names = ['--delay-millis'], description = 'Fixed delay, max uniform delay or mean exponential delay')
+        long delayMillis = 10000
+
+        @Parameter(names = ['--failure-rate'], description = 'Probability of a job execution to fail, from 0 to 1')
+        double failureRate = 0
+
+        @Parameter(names = ['--max-retry'], description = 'Max retry count of the failed jobs')
+        int maxRetry = 2
+
+        @Parameter(names = ['--retry-delay'], description = 'Seconds before retrying a failed job')
+        long retryDelaySecs = 1
+
+        @Parameter(names = ['--work'], description = 'Execution time of each job, in microseconds')
+        long workMicros = 0
+
+        @Parameter(names = ['--payload'], description = 'Size of the job data, in characters')
+        int payloadSize = 64
+
+        @Parameter(names = ['--persisted'], description = 'Persist the jobs in the repository')
+        boolean persisted
+
+        @Parameter(names = ['--repository-latency'], description = 'Time spent in each repository call, in microseconds')
+        long repositoryLatencyMicros = 0
+
+        @Parameter(names = ['--timeout'], description = 'Max seconds waiting for the jobs to be done')
+        long timeoutSecs = 600
+
+        @Parameter(names = ['-v', '--verbose'], description = 'Keep the scheduler logs')
+        boolean verbose
+
+        @DynamicParameter(names = '-S', description = 'Scheduler setting, i.e. -Stajin.async.scheduler.poolSize=16')
+        Map<String, String> settings = [:]
+
+        @Parameter(names = ['-h', '--help'], description = 'Show this help', help = true)
+        boolean help
+    }
+
+}
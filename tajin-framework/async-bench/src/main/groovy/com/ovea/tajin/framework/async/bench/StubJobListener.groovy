@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.bench
+
+import com.ovea.tajin.framework.async.EmptyJobListener
+import com.ovea.tajin.framework.async.JobListener
+import com.ovea.tajin.framework.async.LatencyHistogram
+import com.ovea.tajin.framework.async.Lock
+import com.ovea.tajin.framework.async.TriggeredScheduledJob
+
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * {@link JobListener} simulating the work of the jobs: each one takes {@code workMicros} and fails with a given
+ * probability. Records the lateness of the jobs and counts the jobs done, i.e. completed or abandoned.
+ *
+ * @date 2026-10-18
+ */
+class StubJobListener implements JobListener {
+
+    private final double failureRate
+    private final long workNanos
+
+    /**
+     * delay between the due time of the jobs and their start, in milliseconds
+     */
+    final LatencyHistogram lateness = new LatencyHistogram()
+
+    private final AtomicLong succeeded = new AtomicLong()
+    private final AtomicLong failed = new AtomicLong()
+    private final AtomicLong abandoned = new AtomicLong()
+
+    StubJobListener(double failureRate, long workMicros) {
+        this.failureRate = failureRate
+        this.workNanos = TimeUnit.MICROSECONDS.toNanos(workMicros)
+    }
+
+    @Override
+    void onJobTriggered(TriggeredScheduledJob job) {
+        lateness.record(System.currentTimeMillis() - job.nextTry.time)
+        if (workNanos > 0) {
+            LockSupport.parkNanos(workNanos)
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException('Simulated failure')
+        }
+        succeeded.incrementAndGet()
+    }
+
+    @Override
+    void onJobFailure(TriggeredScheduledJob job, Throwable err) {
+        failed.incrementAndGet()
+        if (!job.retryable) {
+            abandoned.incrementAndGet()
+        }
+    }
+
+    @Override
+    Lock tryLock(TriggeredScheduledJob job) { new EmptyJobListener.EmptyLock() }
+
+    long getSucceededCount() { succeeded.get() }
+
+    long getFailedCount() { failed.get() }
+
+    /**
+     * @return number of jobs which will not run again
+     */
+    long getDoneCount() { succeeded.get() + abandoned.get() }
+
+    void reset() {
+        lateness.reset()
+        succeeded.set(0)
+        failed.set(0)
+        abandoned.set(0)
+    }
+
+}
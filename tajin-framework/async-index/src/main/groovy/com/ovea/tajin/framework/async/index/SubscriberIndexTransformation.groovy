@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.index
+
+import org.codehaus.groovy.ast.ASTNode
+import org.codehaus.groovy.ast.AnnotationNode
+import org.codehaus.groovy.ast.ClassHelper
+import org.codehaus.groovy.ast.ClassNode
+import org.codehaus.groovy.ast.MethodNode
+import org.codehaus.groovy.ast.ModuleNode
+import org.codehaus.groovy.control.CompilePhase
+import org.codehaus.groovy.control.SourceUnit
+import org.codehaus.groovy.control.messages.WarningMessage
+import org.codehaus.groovy.syntax.SyntaxException
+import org.codehaus.groovy.syntax.Token
+import org.codehaus.groovy.transform.ASTTransformation
+import org.codehaus.groovy.transform.GroovyASTTransformation
+
+/**
+ * Global AST transformation writing, for each compiled class, the signatures of its <code>@Subscribe</code> methods
+ * (declared or inherited) into <code>META-INF/tajin/subscribers.index</code> in the output directory.
+ * <p>
+ * At runtime, tajin-async reads this index to find the handlers of indexed classes without scanning their methods
+ * and those of all their supertypes. Each line holds a class name followed by its handler signatures, if any:
+ * <pre>
+ * com.acme.Mailer onUserCreated(com.acme.UserCreated) onUserDeleted(com.acme.UserDeleted)
+ * com.acme.Repository
+ * </pre>
+ * Handlers with a wrong number of parameters are reported as compilation errors. Compilations without output
+ * directory, such as scripts compiled in memory, cannot write the index: they get a warning instead.
+ *
+ * @date 2026-10-18
+ */
+@GroovyASTTransformation(phase = CompilePhase.CANONICALIZATION)
+class SubscriberIndexTransformation implements ASTTransformation {
+
+    static final String LOCATION = 'META-INF/tajin/subscribers.index'
+
+    private static final ClassNode SUBSCRIBE = ClassHelper.make('com.google.common.eventbus.Subscribe')
+
+    /**
+     * Whether the missing output directory has been reported: an instance serves a single compilation
+     */
+    private boolean warned
+
+    @Override
+    void visit(ASTNode[] nodes, SourceUnit source) {
+        File target = source.configuration?.targetDirectory
+        ModuleNode module = source.AST
+        if (!module || !module.classes) {
+            return
+        }
+        if (!target) {
+            if (!warned) {
+                warned = true
+                ClassNode c = module.classes[0]
+                source.errorCollector.addWarning(new WarningMessage(WarningMessage.LIKELY_ERRORS, "No output directory: ${LOCATION} is not written and the @Subscribe methods of the classes of this compilation will be scanned at runtime".toString(), Token.newString(c.name, c.lineNumber, c.columnNumber), source))
+            }
+            return
+        }
+        Map<String, String> entries = [:]
+        module.classes.each { ClassNode c ->
+            entries[c.name] = ([c.name] + handlers(c, source)).join(' ')
+        }
+        if (entries) {
+            write(new File(target, LOCATION), entries)
+        }
+    }
+
+    private static Collection<String> handlers(ClassNode c, SourceUnit source) {
+        c.methods.each { MethodNode m ->
+            if (subscribed(m) && m.parameters.length != 1) {
+                source.addError(new SyntaxException("Method ${c.name}.${m.name} has @Subscribe annotation, but requires ${m.parameters.length} arguments. Event handler methods must require a single argument.", m.lineNumber, m.columnNumber))
+            }
+        }
+        Set<String> signatures = new TreeSet<>()
+        supertypes(c, new LinkedHashSet<ClassNode>()).each { ClassNode type ->
+            type.methods.each { MethodNode m ->
+                if (subscribed(m) && m.parameters.length == 1) {
+                    signatures << "${m.name}(${m.parameters[0].type.name})".toString()
+                }
+            }
+        }
+        return signatures
+    }
+
+    private static boolean subscribed(MethodNode m) {
+        List<AnnotationNode> annotations = m.getAnnotations(SUBSCRIBE)
+        return annotations != null && !annotations.empty
+    }
+
+    private static Set<ClassNode> supertypes(ClassNode c, Set<ClassNode> found) {
+        if (c != null && found.add(c)) {
+            supertypes(c.superClass, found)
+            c.interfaces.each { supertypes(it, found) }
+        }
+        return found
+    }
+
+    /**
+     * Merges the entries into the index: a source unit only knows its own classes.
+     */
+    private static void write(File index, Map<String, String> entries) {
+        synchronized (SubscriberIndexTransformation) {
+            Map<String, String> all = new TreeMap<>()
+            if (index.exists()) {
+                index.eachLine('UTF-8') { String line ->
+                    if (line.trim()) {
+                        all[line.split(' ', 2)[0]] = line
+                    }
+                }
+            }
+            all.putAll(entries)
+            index.parentFile.mkdirs()
+            index.withWriter('UTF-8') { Writer w ->
+                all.values().each { w.write(it + '\n') }
+            }
+        }
+    }
+
+}
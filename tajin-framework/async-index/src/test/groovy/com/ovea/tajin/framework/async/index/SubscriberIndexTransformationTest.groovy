@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.index
+
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.CompilerConfiguration
+import org.codehaus.groovy.control.MultipleCompilationErrorsException
+import org.codehaus.groovy.control.Phases
+import org.codehaus.groovy.control.messages.WarningMessage
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+import java.nio.file.Files
+
+/**
+ * Compiles sources as a build would: the transformation is picked up from its registration in
+ * <code>META-INF/services</code>, not applied by hand.
+ *
+ * @date 2026-10-18
+ */
+@RunWith(JUnit4)
+class SubscriberIndexTransformationTest {
+
+    File dir
+
+    @Before
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory('tajin-index').toFile()
+    }
+
+    @After
+    void tearDown() throws Exception {
+        dir.deleteDir()
+    }
+
+    @Test
+    void test_index_lists_declared_and_inherited_handlers() throws Exception {
+        CompilationUnit unit = compilation(dir)
+        unit.addSource('Auditor.groovy', '''package acme
+            import com.google.common.eventbus.Subscribe
+            abstract class Auditor {
+                @Subscribe void onDeleted(Long id) {}
+            }''')
+        unit.addSource('Mailer.groovy', '''package acme
+            import com.google.common.eventbus.Subscribe
+            class Mailer extends Auditor {
+                @Subscribe void onCreated(String name) {}
+                void send(String to) {}
+            }''')
+        unit.addSource('Repository.groovy', '''package acme
+            class Repository {}''')
+        unit.compile()
+
+        File index = new File(dir, SubscriberIndexTransformation.LOCATION)
+        assert index.exists()
+        assert index.readLines('UTF-8') == [
+            'acme.Auditor onDeleted(java.lang.Long)',
+            'acme.Mailer onCreated(java.lang.String) onDeleted(java.lang.Long)',
+            'acme.Repository',
+        ]
+        assert new File(dir, 'acme/Mailer.class').exists()
+    }
+
+    @Test
+    void test_index_is_merged_across_compilations() throws Exception {
+        CompilationUnit first = compilation(dir)
+        first.addSource('Mailer.groovy', '''package acme
+            import com.google.common.eventbus.Subscribe
+            class Mailer {
+                @Subscribe void onCreated(String name) {}
+            }''')
+        first.compile()
+        CompilationUnit second = compilation(dir)
+        second.addSource('Repository.groovy', '''package acme
+            class Repository {}''')
+        second.compile()
+
+        assert new File(dir, SubscriberIndexTransformation.LOCATION).readLines('UTF-8') == [
+            'acme.Mailer onCreated(java.lang.String)',
+            'acme.Repository',
+        ]
+    }
+
+    @Test
+    void test_handler_with_several_parameters_is_an_error() throws Exception {
+        CompilationUnit unit = compilation(dir)
+        unit.addSource('Mailer.groovy', '''package acme
+            import com.google.common.eventbus.Subscribe
+            class Mailer {
+                @Subscribe void onCreated(String name, String email) {}
+            }''')
+        try {
+            unit.compile()
+            assert false
+        } catch (MultipleCompilationErrorsException e) {
+            assert e.message.contains('Method acme.Mailer.onCreated has @Subscribe annotation, but requires 2 arguments')
+        }
+    }
+
+    @Test
+    void test_warning_without_output_directory() throws Exception {
+        CompilationUnit unit = compilation(null)
+        unit.addSource('Mailer.groovy', '''package acme
+            import com.google.common.eventbus.Subscribe
+            class Mailer {
+                @Subscribe void onCreated(String name) {}
+            }''')
+        unit.addSource('Repository.groovy', '''package acme
+            class Repository {}''')
+        unit.compile(Phases.CLASS_GENERATION)
+
+        List<WarningMessage> warnings = unit.errorCollector.warnings.findAll {
+            it.message.contains(SubscriberIndexTransformation.LOCATION)
+        }
+        assert warnings.size() == 1
+    }
+
+    private CompilationUnit compilation(File target) {
+        CompilerConfiguration configuration = new CompilerConfiguration()
+        if (target) {
+            configuration.targetDirectory = target
+        }
+        return new CompilationUnit(configuration, null, new GroovyClassLoader(getClass().classLoader))
+    }
+
+}
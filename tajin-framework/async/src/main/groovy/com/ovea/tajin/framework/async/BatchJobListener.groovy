@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * A {@link JobListener} handling the due jobs of a name in batches, i.e. to make one bulk request downstream.
+ * <p>
+ * Batching is enabled per job name with <code>tajin.async.scheduler.jobs.&lt;name&gt;.batchSize</code>: the other
+ * jobs are still handled one by one with {@link JobListener#onJobTriggered}. Each job of a batch is locked like a
+ * single job, then completed, retried or rescheduled on its own.
+ *
+ * @date 2026-10-18
+ */
+interface BatchJobListener extends JobListener {
+
+    /**
+     * @param jobs due jobs of the same name, locked
+     * @return the jobs which failed with their error, or an empty map if all succeeded. Throwing fails the whole batch.
+     */
+    Map<TriggeredScheduledJob, Throwable> onJobsTriggered(List<TriggeredScheduledJob> jobs)
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * A {@link JobRepository} able to write several jobs in one round-trip. Implementing it is optional: the batched
+ * writes of {@link WriteBehindJobRepository} fall back to {@link JobRepository#insert} and
+ * {@link JobRepository#update} job by job otherwise.
+ *
+ * @date 2026-10-18
+ */
+interface BatchJobRepository extends JobRepository {
+
+    /**
+     * Inserts several jobs at once, ideally in one round-trip
+     *
+     * @throws DuplicateJobException if a pending job has the same {@link ScheduledJob#dedupKey} as one of the jobs: none of them is inserted
+     */
+    void insertAll(Collection<TriggeredScheduledJob> jobs)
+
+    /**
+     * Updates several jobs at once, ideally in one round-trip
+     */
+    void updateAll(Collection<TriggeredScheduledJob> jobs)
+
+}
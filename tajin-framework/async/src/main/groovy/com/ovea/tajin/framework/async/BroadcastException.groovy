@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * Failure of a {@link Dispatcher#broadcastAsync(Object)}: holds the exceptions thrown by the subscribers
+ * (also added as suppressed exceptions), or the reason why the event could not be delivered to some of them.
+ *
+ * @date 2026-10-18
+ */
+class BroadcastException extends RuntimeException {
+
+    final Object event
+    final List<Throwable> failures
+
+    BroadcastException(Object event, List<Throwable> failures) {
+        super("${failures.size()} subscriber(s) failed to handle event ${event}: ${failures[0].message}" as String, failures[0])
+        this.event = event
+        this.failures = Collections.unmodifiableList(new ArrayList<Throwable>(failures))
+        for (int i = 1; i < failures.size(); i++) {
+            addSuppressed(failures[i])
+        }
+    }
+
+}
@@ -15,19 +15,38 @@
  */
 package com.ovea.tajin.framework.async
 
+import com.google.common.util.concurrent.ListenableFuture
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.mycila.jmx.annotation.JmxBean
+import com.mycila.jmx.annotation.JmxMethod
+import com.mycila.jmx.annotation.JmxProperty
 import com.ovea.tajin.framework.async.guava.AsyncEventBus
+import com.ovea.tajin.framework.async.guava.DeadEvent
 import com.ovea.tajin.framework.async.guava.EventBus
+import com.ovea.tajin.framework.async.guava.MailboxPolicy
+import com.ovea.tajin.framework.async.guava.PartitionedEventBus
+import com.ovea.tajin.framework.async.guava.RingBufferEventBus
 import com.ovea.tajin.framework.core.Settings
 
 import javax.annotation.PostConstruct
+import javax.annotation.PreDestroy
 import javax.inject.Inject
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
 import java.util.logging.Logger
 
 /**
  * @author Mathieu Carbou (mathieu.carbou@gmail.com)
  * @date 2013-09-05
  */
+@JmxBean('com.ovea.tajin:type=Dispatcher,name=main')
 @javax.inject.Singleton
 class ConfiguredEventBus implements Dispatcher {
 
@@ -37,14 +56,92 @@ class ConfiguredEventBus implements Dispatcher {
     @Inject Settings settings
 
     private EventBus eventBus
+    private ExecutorService[] lanes
 
     @PostConstruct
     void init() {
         if (settings.getBoolean('tajin.async.dispatcher.enabled', true)) {
-            eventBus = new AsyncEventBus(executor)
+            int partitions = settings.getInt('tajin.async.dispatcher.partitions', 0)
+            if ('ringbuffer'.equalsIgnoreCase(settings.getString('tajin.async.dispatcher.type', 'executor'))) {
+                // the ring buffer consumers would deliver the events of a partition concurrently
+                if (partitions > 0) throw new IllegalArgumentException("Invalid partitions: " + partitions + ". 'tajin.async.dispatcher.partitions' cannot be used with 'tajin.async.dispatcher.type' ringbuffer.")
+                RingBufferEventBus ring = new RingBufferEventBus(
+                    Dispatcher.simpleName,
+                    settings.getInt('tajin.async.dispatcher.ringbuffer.size', 8192),
+                    settings.getInt('tajin.async.dispatcher.ringbuffer.consumers', 1),
+                    settings.getEnum(RingBufferEventBus.WaitStrategy, 'tajin.async.dispatcher.ringbuffer.waitStrategy', RingBufferEventBus.WaitStrategy.BLOCK))
+                ring.start()
+                eventBus = ring
+            } else if (partitions > 0) {
+                ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setDaemon(false)
+                    .setNameFormat("${Dispatcher.simpleName}-lane-%d")
+                    .setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                    @Override
+                    void uncaughtException(Thread t, Throwable e) {
+                        LOGGER.log(Level.SEVERE, "UncaughtException in ${Dispatcher.simpleName} lane '${t.name}': ${e.message}", e)
+                    }
+                }).build()
+                MailboxPolicy mailboxPolicy = mailboxPolicy(settings)
+                MailboxPolicy lanePolicy = lanePolicy(settings, mailboxPolicy)
+                lanes = new ExecutorService[partitions]
+                for (int i = 0; i < partitions; i++) {
+                    lanes[i] = PartitionedEventBus.newLane(threadFactory, lanePolicy)
+                }
+                eventBus = new PartitionedEventBus('default', executor, mailboxPolicy, lanes, new PartitionKeys())
+            } else {
+                eventBus = new AsyncEventBus('default', executor, mailboxPolicy(settings))
+            }
         }
     }
 
+    @PreDestroy
+    void shutdown() {
+        if (eventBus instanceof RingBufferEventBus) {
+            try {
+                if (!((RingBufferEventBus) eventBus).shutdown(30, TimeUnit.SECONDS)) {
+                    LOGGER.severe('Unable to terminate ring buffer consumers after 30 seconds')
+                }
+            } catch (Throwable e) {
+                LOGGER.log(Level.SEVERE, 'Unable to terminate ring buffer consumers', e)
+            }
+        }
+        if (lanes) {
+            lanes.each { it.shutdown() }
+            try {
+                lanes.each { it.awaitTermination(30, TimeUnit.SECONDS) }
+            } catch (Throwable e) {
+                LOGGER.log(Level.SEVERE, 'Unable to terminate after 30 seconds', e)
+            }
+        }
+    }
+
+    static MailboxPolicy mailboxPolicy(Settings settings) {
+        // opt-in: mailboxes change the shape of the @AsyncExecutor pool
+        int capacity = settings.getInt('tajin.async.dispatcher.mailbox.capacity', 0)
+        if (capacity <= 0) {
+            return null
+        }
+        MailboxPolicy policy = new MailboxPolicy()
+        policy.capacity = capacity
+        policy.overflow = settings.getEnum(MailboxPolicy.Overflow, 'tajin.async.dispatcher.mailbox.overflow', policy.overflow)
+        policy.blockTimeoutMillis = settings.getLong('tajin.async.dispatcher.mailbox.blockTimeout', policy.blockTimeoutMillis)
+        policy.concurrency = settings.getInt('tajin.async.dispatcher.mailbox.concurrency', policy.concurrency)
+        if (policy.concurrency <= 0) throw new IllegalArgumentException("Invalid mailbox concurrency: " + policy.concurrency + ". 'tajin.async.dispatcher.mailbox.concurrency' must be greater than 0.")
+        return policy
+    }
+
+    static MailboxPolicy lanePolicy(Settings settings, MailboxPolicy mailboxPolicy) {
+        // lanes are always bounded, and never deliver in the posting thread: that would break the order of a partition
+        MailboxPolicy policy = new MailboxPolicy()
+        policy.capacity = settings.getInt('tajin.async.dispatcher.partitions.capacity', mailboxPolicy ? mailboxPolicy.capacity : policy.capacity)
+        if (policy.capacity <= 0) throw new IllegalArgumentException("Invalid lane capacity: " + policy.capacity + ". 'tajin.async.dispatcher.partitions.capacity' must be greater than 0.")
+        policy.overflow = settings.getEnum(MailboxPolicy.Overflow, 'tajin.async.dispatcher.partitions.overflow', MailboxPolicy.Overflow.BLOCK)
+        if (policy.overflow == MailboxPolicy.Overflow.CALLER_RUNS) throw new IllegalArgumentException("Invalid lane overflow: " + policy.overflow + ". 'tajin.async.dispatcher.partitions.overflow' must be BLOCK, DROP_OLDEST or DROP_NEWEST.")
+        policy.blockTimeoutMillis = settings.getLong('tajin.async.dispatcher.partitions.blockTimeout', policy.blockTimeoutMillis)
+        return policy
+    }
+
     void register(Object o) {
         LOGGER.info('+subscriber ' + o.class.name)
         eventBus.register(o)
@@ -56,6 +153,110 @@ class ConfiguredEventBus implements Dispatcher {
     }
 
     @Override
-    void broadcast(Object event) { eventBus.post(event) }
+    void broadcast(Object event) {
+        record(event)
+        eventBus.post(event)
+    }
+
+    @Override
+    ListenableFuture<Void> broadcastAsync(Object event) {
+        record(event)
+        return eventBus.postAsync(event)
+    }
+
+    @Override
+    void broadcastAll(Collection<?> events) {
+        for (Object event : events) {
+            record(event)
+        }
+        eventBus.postAll(events)
+    }
+
+    private void record(Object event) {
+        int fanOut = eventBus.handlersFor(event.class).length
+        EventTypeStats stats = eventTypeStats.get(event.class)
+        if (stats == null) {
+            EventTypeStats previous = eventTypeStats.putIfAbsent(event.class, stats = new EventTypeStats())
+            if (previous) stats = previous
+        }
+        stats.posted.incrementAndGet()
+        stats.fanOut = fanOut
+        if (fanOut == 0 && !(event instanceof DeadEvent)) {
+            nDeadEvents.incrementAndGet()
+        }
+    }
+
+    // stats
+
+    private final ConcurrentMap<Class<?>, EventTypeStats> eventTypeStats = new ConcurrentHashMap<>()
+    private final AtomicLong nDeadEvents = new AtomicLong()
+
+    @JmxProperty
+    long getPostedCount() { eventTypeStats.values().sum(0L) { it.posted.get() } as long }
+
+    @JmxProperty
+    long getDeadEventCount() { nDeadEvents.get() }
+
+    @JmxProperty
+    Collection<String> getEventTypeStats() {
+        return eventTypeStats.collect { k, v -> "${k.name} ${v.summary()}" as String }.sort()
+    }
+
+    @JmxProperty
+    Collection<String> getHandlerStats() {
+        return eventBus ? eventBus.handlers.collect { "${it} failures=${it.failureCount} ${it.latency.summary('us')}" as String }.sort() : []
+    }
+
+    @JmxProperty
+    int getExecutorQueueDepth() {
+        if (executor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) executor).queue.size()
+        if (executor instanceof VirtualThreadExecutor) return ((VirtualThreadExecutor) executor).waitingCount
+        return 0
+    }
+
+    @JmxProperty
+    int getExecutorActiveThreads() {
+        if (executor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) executor).activeCount
+        if (executor instanceof VirtualThreadExecutor) return ((VirtualThreadExecutor) executor).activeCount
+        return 0
+    }
+
+    @JmxProperty
+    long getMailboxDepth() { eventBus instanceof AsyncEventBus ? ((AsyncEventBus) eventBus).mailboxes.sum(0L) { it.depth } as long : 0 }
+
+    @JmxProperty
+    long getMailboxDroppedCount() { eventBus instanceof AsyncEventBus ? ((AsyncEventBus) eventBus).mailboxes.sum(0L) { it.droppedCount } as long : 0 }
+
+    @JmxProperty
+    long getLaneDroppedCount() { eventBus instanceof PartitionedEventBus ? ((PartitionedEventBus) eventBus).laneDroppedCount : 0 }
+
+    @JmxProperty
+    long getRingBufferBacklog() { eventBus instanceof RingBufferEventBus ? ((RingBufferEventBus) eventBus).backlog : 0 }
+
+    @JmxMethod
+    void resetStats() {
+        eventTypeStats.clear()
+        nDeadEvents.set(0)
+        eventBus?.handlers?.each { it.latency.reset() }
+    }
+
+    static final class EventTypeStats {
+        final AtomicLong posted = new AtomicLong()
+        volatile int fanOut
+        private long lastCount
+        private long lastTime = System.nanoTime()
+
+        /**
+         * @return the counters and the post rate since the previous call
+         */
+        synchronized String summary() {
+            long count = posted.get()
+            long now = System.nanoTime()
+            double rate = now > lastTime ? (count - lastCount) * 1e9d / (now - lastTime) : 0d
+            lastCount = count
+            lastTime = now
+            return "posted=${count} rate=${String.format('%.2f', rate)}/s fanOut=${fanOut}"
+        }
+    }
 
 }
@@ -15,6 +15,8 @@
  */
 package com.ovea.tajin.framework.async
 
+import com.google.common.collect.AbstractIterator
+import com.google.common.collect.Iterables
 import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.mycila.jmx.annotation.JmxBean
 import com.mycila.jmx.annotation.JmxMethod
@@ -24,15 +26,23 @@ import com.ovea.tajin.framework.core.Settings
 import javax.annotation.PostConstruct
 import javax.annotation.PreDestroy
 import javax.inject.Inject
-import java.util.concurrent.CancellationException
+import java.lang.management.ManagementFactory
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ConcurrentMap
-import java.util.concurrent.ExecutionException
 import java.util.concurrent.Executor
-import java.util.concurrent.Future
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinWorkerThread
 import java.util.concurrent.FutureTask
+import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicLong
 import java.util.logging.Level
@@ -50,15 +60,69 @@ class DefaultJobScheduler implements JobScheduler {
 
     private final ConcurrentMap<String, Bucket> scheduledJobs = new ConcurrentHashMap<>()
 
-    private ScheduledExecutorService executorService
+    private JobTimer timer
+
+    /**
+     * Executor running the jobs fired by the timer, so that a slow job does not delay the firing of the others
+     */
+    private ExecutorService jobExecutor
+
+    /**
+     * Ids of the jobs scheduled, refreshed or cancelled while the pending jobs are recovered: recovery skips them
+     */
+    private final Set<String> touchedDuringRecovery = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
+    private volatile boolean recovering
+    private Thread recoveryThread
+
+    /**
+     * Retry budgets per job name, when enabled
+     */
+    private final ConcurrentMap<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>()
+
+    /**
+     * Concurrency and rate limits per job name, from <code>tajin.async.scheduler.jobs.&lt;name&gt;.*</code>
+     */
+    private final ConcurrentMap<String, JobThrottle> throttles = new ConcurrentHashMap<>()
+
+    /**
+     * Batches of due jobs per job name, from <code>tajin.async.scheduler.jobs.&lt;name&gt;.batch*</code>
+     */
+    private final ConcurrentMap<String, JobBatcher> batchers = new ConcurrentHashMap<>()
+
+    /**
+     * Id of the scheduled job holding each dedup key
+     */
+    private final ConcurrentMap<String, String> dedupIndex = new ConcurrentHashMap<>()
+    private int retryBudgetPercent = -1
+    private int retryBudgetMinPerSecond
+    private long shedDelay
+
+    /**
+     * Leases renewed while their job runs, when a {@link LeaseManager} is bound
+     */
+    private ScheduledExecutorService leaseRenewer
+    private String leaseOwner
+    private long leaseTtl
+
+    /**
+     * Set once the scheduler drains: new jobs are refused and nothing is rescheduled in memory
+     */
+    private volatile boolean draining
+    private long drainTimeout = TimeUnit.SECONDS.toMillis(30)
 
     @Inject JobRepository repository = new EmptyJobRepository()
     @Inject JobListener listener = new EmptyJobListener()
     @Inject Settings settings
 
-    @Inject
-    @AsyncExecutor
-    Executor fallbackExecutor
+    /**
+     * Optional: when bound, jobs run under an expiring lease instead of <code>JobListener.tryLock</code>
+     */
+    @com.google.inject.Inject(optional = true) LeaseManager leaseManager
+
+    /**
+     * Runs the due jobs when the scheduler is disabled: without a timer, delayed jobs are refused
+     */
+    @com.google.inject.Inject(optional = true) @AsyncExecutor Executor fallbackExecutor
 
     @PostConstruct
     void init() {
@@ -66,62 +130,303 @@ class DefaultJobScheduler implements JobScheduler {
         if (enabled) {
             int poolSize = settings.getInt('tajin.async.scheduler.poolSize', 2 * Runtime.runtime.availableProcessors())
             if (poolSize <= 0) throw new IllegalArgumentException("Invalid pool size: " + poolSize + ". 'tajin.async.scheduler.poolSize' must be greater than 0.")
-            this.executorService = new ScheduledThreadPoolExecutor(
-                poolSize,
-                new ThreadFactoryBuilder()
-                    .setDaemon(false)
-                    .setNameFormat("${JobScheduler.simpleName}-thread-%d")
-                    .setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            Thread.UncaughtExceptionHandler uncaughtExceptionHandler = new Thread.UncaughtExceptionHandler() {
+                @Override
+                void uncaughtException(Thread t, Throwable e) {
+                    LOGGER.log(Level.SEVERE, "UncaughtException in ${JobScheduler.simpleName} thread '${t.name}': ${e.message}", e)
+                }
+            }
+            this.jobExecutor = createJobExecutor(poolSize, uncaughtExceptionHandler)
+            ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setDaemon(false)
+                .setNameFormat("${JobScheduler.simpleName}-timer-%d")
+                .setUncaughtExceptionHandler(uncaughtExceptionHandler)
+                .build()
+            if ('wheel'.equalsIgnoreCase(settings.getString('tajin.async.scheduler.timer', 'executor'))) {
+                long tick = settings.getLong('tajin.async.scheduler.timer.tick', 10)
+                int wheelSize = settings.getInt('tajin.async.scheduler.timer.wheelSize', 512)
+                if (tick <= 0) throw new IllegalArgumentException("Invalid tick: " + tick + ". 'tajin.async.scheduler.timer.tick' must be greater than 0.")
+                if (wheelSize < 2) throw new IllegalArgumentException("Invalid wheel size: " + wheelSize + ". 'tajin.async.scheduler.timer.wheelSize' must be greater than 1.")
+                this.timer = new TimingWheelJobTimer("${JobScheduler.simpleName}-timer", tick, TimeUnit.MILLISECONDS, wheelSize, jobExecutor)
+            } else {
+                int timerThreads = settings.getInt('tajin.async.scheduler.timer.threads', 1)
+                if (timerThreads <= 0) throw new IllegalArgumentException("Invalid timer thread count: " + timerThreads + ". 'tajin.async.scheduler.timer.threads' must be greater than 0.")
+                this.timer = new ExecutorJobTimer(new ScheduledThreadPoolExecutor(timerThreads, threadFactory), jobExecutor)
+            }
+            int batchSize = settings.getInt('tajin.async.scheduler.repository.batchSize', 1)
+            if (batchSize <= 0) throw new IllegalArgumentException("Invalid batch size: " + batchSize + ". 'tajin.async.scheduler.repository.batchSize' must be greater than 0.")
+            if (batchSize > 1 && repository) {
+                // group-commit the job state changes in the background
+                this.repository = new WriteBehindJobRepository(repository, batchSize, settings.getLong('tajin.async.scheduler.repository.flushInterval', 20))
+            }
+            this.retryBudgetPercent = settings.getInt('tajin.async.scheduler.retryBudget.percent', -1)
+            this.retryBudgetMinPerSecond = settings.getInt('tajin.async.scheduler.retryBudget.minPerSecond', 10)
+            this.shedDelay = TimeUnit.SECONDS.toMillis(settings.getLong('tajin.async.scheduler.retryBudget.shedDelay', 300))
+            if (retryBudgetMinPerSecond < 0) throw new IllegalArgumentException("Invalid min retry rate: " + retryBudgetMinPerSecond + ". 'tajin.async.scheduler.retryBudget.minPerSecond' must be positive.")
+            if (shedDelay <= 0) throw new IllegalArgumentException("Invalid shed delay: " + shedDelay + ". 'tajin.async.scheduler.retryBudget.shedDelay' must be greater than 0.")
+            if (leaseManager) {
+                this.leaseOwner = settings.getString('tajin.async.scheduler.lease.owner', ManagementFactory.runtimeMXBean.name)
+                this.leaseTtl = TimeUnit.SECONDS.toMillis(settings.getLong('tajin.async.scheduler.lease.ttl', 30))
+                if (leaseTtl <= 0) throw new IllegalArgumentException("Invalid lease TTL: " + leaseTtl + ". 'tajin.async.scheduler.lease.ttl' must be greater than 0.")
+                this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("${JobScheduler.simpleName}-lease-%d")
+                    .build())
+            }
+            this.drainTimeout = TimeUnit.SECONDS.toMillis(settings.getLong('tajin.async.scheduler.drain.timeout', 30))
+            if (drainTimeout < 0) throw new IllegalArgumentException("Invalid drain timeout: " + drainTimeout + ". 'tajin.async.scheduler.drain.timeout' must be positive.")
+            int pageSize = settings.getInt('tajin.async.scheduler.recovery.pageSize', 1000)
+            int parallelism = settings.getInt('tajin.async.scheduler.recovery.parallelism', Runtime.runtime.availableProcessors())
+            int overdueRate = settings.getInt('tajin.async.scheduler.recovery.overdueRate', 100)
+            if (pageSize <= 0) throw new IllegalArgumentException("Invalid page size: " + pageSize + ". 'tajin.async.scheduler.recovery.pageSize' must be greater than 0.")
+            if (parallelism <= 0) throw new IllegalArgumentException("Invalid parallelism: " + parallelism + ". 'tajin.async.scheduler.recovery.parallelism' must be greater than 0.")
+            if (overdueRate <= 0) throw new IllegalArgumentException("Invalid overdue rate: " + overdueRate + ". 'tajin.async.scheduler.recovery.overdueRate' must be greater than 0.")
+            if (repository) {
+                recovering = true
+                if (settings.getBoolean('tajin.async.scheduler.recovery.background', true)) {
+                    // new jobs can be scheduled while the pending ones are recovered
+                    recoveryThread = new Thread(new Runnable() {
+                        @Override
+                        void run() {
+                            recover(pageSize, parallelism, overdueRate)
+                        }
+                    }, "${JobScheduler.simpleName}-recovery")
+                    recoveryThread.daemon = true
+                    recoveryThread.start()
+                } else {
+                    recover(pageSize, parallelism, overdueRate)
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the executor running the jobs, from <code>tajin.async.scheduler.executor.type</code>: <code>pool</code>
+     * (fixed thread pool), <code>forkjoin</code> (work-stealing pool, for jobs which do not block) or
+     * <code>virtual</code> (virtual threads, falling back to <code>pool</code> before Java 21). {@code poolSize} is
+     * the number of threads, or of jobs running at the same time on virtual threads.
+     */
+    private ExecutorService createJobExecutor(int poolSize, Thread.UncaughtExceptionHandler uncaughtExceptionHandler) {
+        String type = settings.getString('tajin.async.scheduler.executor.type', ExecutorType.from(settings) == ExecutorType.VIRTUAL ? 'virtual' : 'pool')
+        switch (type.trim().toLowerCase(Locale.ENGLISH)) {
+            case 'virtual':
+                ExecutorService executor = VirtualThreadExecutor.create("${JobScheduler.simpleName}-vthread-", poolSize)
+                if (executor) {
+                    return executor
+                }
+                LOGGER.warning("Virtual threads are not supported by this JVM: using a thread pool for ${JobScheduler.simpleName}")
+                break
+            case 'forkjoin':
+                return new ForkJoinPool(poolSize, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
                     @Override
-                    void uncaughtException(Thread t, Throwable e) {
-                        LOGGER.log(Level.SEVERE, "UncaughtException in ${Dispatcher.simpleName} thread '${t.name}': ${e.message}", e)
+                    ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool)
+                        thread.name = "${JobScheduler.simpleName}-worker-${thread.poolIndex}"
+                        return thread
                     }
-                }).build()
-            ).with {
-                it.removeOnCancelPolicy = true
-                return it
-            }
-            List<TriggeredScheduledJob> deletions = []
-            repository?.listPendingJobs()?.each {
-                if (it.retryable) {
-                    doSchedule(new PersistentJobRunner(it))
-                } else {
-                    deletions << it
+                }, uncaughtExceptionHandler, true)
+            case 'pool':
+                break
+            default:
+                throw new IllegalArgumentException("Invalid executor type: " + type + ". 'tajin.async.scheduler.executor.type' must be pool, forkjoin or virtual.")
+        }
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactoryBuilder()
+            .setDaemon(false)
+            .setNameFormat("${JobScheduler.simpleName}-thread-%d")
+            .setUncaughtExceptionHandler(uncaughtExceptionHandler)
+            .build())
+    }
+
+    /**
+     * Reschedules the pending jobs of the repository, page by page. Pages are rescheduled in parallel while the
+     * next ones are read. Overdue jobs are spread at {@code overdueRate} jobs per second instead of all firing at once.
+     * Jobs scheduled, refreshed or cancelled meanwhile are left alone.
+     */
+    private void recover(int pageSize, int parallelism, int overdueRate) {
+        long started = System.nanoTime()
+        AtomicLong overdue = new AtomicLong()
+        AtomicLong removed = new AtomicLong()
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("${JobScheduler.simpleName}-recovery-%d")
+            .build())
+        Semaphore pages = new Semaphore(2 * parallelism)
+        try {
+            Iterator<List<TriggeredScheduledJob>> pending = pendingPages(pageSize)
+            while (recovering && pending.hasNext()) {
+                final List<TriggeredScheduledJob> page = pending.next()
+                pages.acquire()
+                workers.execute(new Runnable() {
+                    @Override
+                    void run() {
+                        try {
+                            reschedule(page, overdueRate, overdue, removed)
+                        } catch (Throwable e) {
+                            LOGGER.log(Level.SEVERE, "Unable to recover jobs ${page*.id}: ${e.message}", e)
+                        } finally {
+                            pages.release()
+                        }
+                    }
+                })
+            }
+            workers.shutdown()
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+            LOGGER.info("Recovered ${nRecovered.get()} jobs (${overdue.get()} overdue, ${removed.get()} removed) in ${TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)}ms")
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Job recovery failed: ${e.message}", e)
+        } finally {
+            workers.shutdownNow()
+            recovering = false
+            touchedDuringRecovery.clear()
+        }
+    }
+
+    /**
+     * Pages through the pending jobs if the repository supports it, or splits them once all loaded
+     */
+    private Iterator<List<TriggeredScheduledJob>> pendingPages(final int pageSize) {
+        JobRepository store = repository instanceof WriteBehindJobRepository ? ((WriteBehindJobRepository) repository).delegate : repository
+        if (!(store instanceof PagedJobRepository)) {
+            return Iterables.partition(repository.listPendingJobs(), pageSize).iterator()
+        }
+        final PagedJobRepository paged = (PagedJobRepository) repository
+        return new AbstractIterator<List<TriggeredScheduledJob>>() {
+            String cursor
+            boolean last
+
+            @Override
+            protected List<TriggeredScheduledJob> computeNext() {
+                List<TriggeredScheduledJob> page = last ? [] : paged.listPendingJobs(cursor, pageSize)
+                if (!page) {
+                    return endOfData()
                 }
+                cursor = page[-1].id
+                last = page.size() < pageSize
+                return page
+            }
+        }
+    }
+
+    private void reschedule(List<TriggeredScheduledJob> page, int overdueRate, AtomicLong overdue, AtomicLong removed) {
+        List<TriggeredScheduledJob> deletions = []
+        long now = System.currentTimeMillis()
+        for (TriggeredScheduledJob job : page) {
+            if (!recovering) {
+                return
+            }
+            if (touchedDuringRecovery.contains(job.id) || scheduledJobs.containsKey(job.id)) {
+                continue
+            }
+            if (!job.retryable) {
+                deletions << job
+                continue
             }
-            if (deletions) {
-                LOGGER.log(Level.WARNING, "Removing un-retryable jobs: " + deletions.collect { it.id })
-                repository.delete(deletions)
+            if (!claimDedupKey(job)) {
+                continue
             }
+            long delay = job.nextTry.time - now
+            if (delay <= 0) {
+                // spread the overdue jobs
+                delay = TimeUnit.SECONDS.toMillis(overdue.getAndIncrement()).intdiv(overdueRate) as long
+            }
+            doSchedule(new PersistentJobRunner(job), delay, Level.FINE)
+            nRecovered.incrementAndGet()
+        }
+        if (deletions) {
+            LOGGER.log(Level.WARNING, "Removing un-retryable jobs: " + deletions.collect { it.id })
+            repository.delete(deletions)
+            removed.addAndGet(deletions.size())
         }
     }
 
     @PreDestroy
     void shutdown() {
-        while (scheduledJobs) {
-            cancel(scheduledJobs.keySet(), false)
-        }
-        executorService.shutdown()
+        // the drain and the terminations share the same timeout
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout)
+        drain(remaining(deadline), TimeUnit.NANOSECONDS)
+        timer?.shutdown()
+        jobExecutor?.shutdown()
         try {
-            executorService.awaitTermination(30, TimeUnit.SECONDS)
+            timer?.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS)
+            jobExecutor?.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS)
         } catch (Throwable e) {
-            LOGGER.log(Level.SEVERE, 'Unable to terminate after 30 seconds', e)
+            LOGGER.log(Level.SEVERE, "Unable to terminate after ${drainTimeout}ms", e)
+        }
+        // the running jobs renew their lease until they end
+        leaseRenewer?.shutdown()
+        if (repository instanceof WriteBehindJobRepository) {
+            ((WriteBehindJobRepository) repository).close(drainTimeout, TimeUnit.MILLISECONDS)
         }
     }
 
+    /**
+     * Drains the scheduler, i.e. before a rolling deploy: new jobs are refused (persisted ones are only stored in the
+     * repository), the jobs which did not start are dropped from memory, persisted ones staying in the repository for
+     * the next node, and the running jobs are waited for. Their outcome is written to the repository, but their
+     * retries and next occurrences are not scheduled in memory. A job still running after the timeout is left as
+     * it was in the repository, to be run again.
+     *
+     * @return true if all the running jobs completed within the timeout
+     */
+    boolean drain(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout)
+        if (!draining) {
+            LOGGER.info("Draining ${JobScheduler.simpleName}")
+        }
+        draining = true
+        if (recovering) {
+            recovering = false
+            // join(0) would wait forever
+            recoveryThread?.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining(deadline))))
+        }
+        List<String> pending = []
+        for (Bucket b : scheduledJobs.values()) {
+            if (b.runner.cancelIfNotStarted()) {
+                pending << b.job.id
+            }
+        }
+        cancel(pending, false)
+        while (nRunning.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(Math.min(50L, Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))))
+        }
+        Collection<String> running = scheduledJobs.findAll { k, v -> v.runner.running }.collect { k, v -> k }
+        if (running) {
+            LOGGER.warning("Jobs still running after the drain timeout, to be run again from the repository: ${running}")
+        }
+        if (repository instanceof WriteBehindJobRepository) {
+            ((WriteBehindJobRepository) repository).flush()
+        }
+        return running.empty
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0L, deadline - System.nanoTime())
+    }
+
     @Override
     void cancel(Collection<String> ids) { cancel(ids, true) }
 
     @Override
     void cancel(Collection<String> ids, boolean removeAlsoFromDB) {
         if (ids) {
+            if (recovering) {
+                touchedDuringRecovery.addAll(ids)
+            }
             LOGGER.info('Cancelling jobs ' + ids + ' from memory' + (removeAlsoFromDB ? ' and bd' : ''))
             List<TriggeredScheduledJob> jobs = []
             ids.each { String id ->
-                Bucket b = scheduledJobs.remove(id)
+                Bucket b = scheduledJobs.get(id)
                 if (b) {
+                    // waits for a job being rescheduled in place: its new bucket is then removed too
+                    b.runner.cancel()
+                    Bucket current = scheduledJobs.remove(id)
+                    if (current && current != b) {
+                        current.runner.cancel()
+                        current.timeout.cancel()
+                    }
                     jobs << b.job
-                    b.future.cancel(false)
+                    b.timeout.cancel()
+                    releaseDedupKey(b.job)
                 }
             }
             if (removeAlsoFromDB && jobs) {
@@ -134,22 +439,61 @@ class DefaultJobScheduler implements JobScheduler {
     void refresh(Collection<String> ids) {
         cancel(ids, false)
         repository.load(ids).each {
-            if (it.retryable) {
-                doSchedule(new PersistentJobRunner(it))
+            if (it.retryable && claimDedupKey(it)) {
+                try {
+                    doSchedule(new PersistentJobRunner(it))
+                } catch (Throwable err) {
+                    releaseDedupKey(it)
+                    throw err
+                }
             }
         }
     }
 
     @Override
     void schedule(ScheduledJob e) {
+        if (draining && !e.persisted) throw new IllegalStateException('Scheduler draining: unable to schedule ' + e)
         if (!e.name) throw new IllegalArgumentException('Missing jobName')
         if (!e.startDate) throw new IllegalArgumentException('Missing time')
+        if (e.fixedRateMillis < 0 || e.fixedDelayMillis < 0) throw new IllegalArgumentException('Invalid period: ' + e)
+        if ((e.fixedRateMillis > 0 ? 1 : 0) + (e.fixedDelayMillis > 0 ? 1 : 0) + (e.cron ? 1 : 0) > 1) throw new IllegalArgumentException('Only one of fixedRateMillis, fixedDelayMillis and cron can be set: ' + e)
         TriggeredScheduledJob job = new TriggeredScheduledJob(
             source: e,
-            nextTry: e.startDate
+            nextTry: e.cron ? new Date(e.nextFireTime(e.startDate.time - 1)) : e.startDate
         )
+        if (job.nextTry.time < 0) throw new IllegalArgumentException('Cron expression never fires: ' + e.cron)
+        if (!jobExecutor && (!fallbackExecutor || job.nextTry.time > System.currentTimeMillis() || e.recurring)) throw new IllegalStateException("Scheduler disabled ('tajin.async.scheduler.enabled' is false): unable to schedule " + e)
+        if (!claimDedupKey(job)) {
+            nDeduplicated.incrementAndGet()
+            LOGGER.fine("Not scheduling ${e}: job ${dedupIndex.get(e.dedupKey)} has the same dedup key")
+            return
+        }
+        if (recovering) {
+            touchedDuringRecovery.add(job.id)
+        }
         if (job.source.persisted) {
-            repository.insert(job)
+            try {
+                if (repository instanceof WriteBehindJobRepository) {
+                    // a job must not run before the repository has checked its dedup key
+                    ((WriteBehindJobRepository) repository).insert(job, job.source.durable || job.source.dedupKey != null)
+                } else {
+                    repository.insert(job)
+                }
+            } catch (DuplicateJobException dup) {
+                // pending in the repository, scheduled by another node or not yet recovered
+                releaseDedupKey(job)
+                nDeduplicated.incrementAndGet()
+                LOGGER.fine("Not scheduling ${e}: ${dup.message}")
+                return
+            } catch (Throwable err) {
+                releaseDedupKey(job)
+                throw err
+            }
+            if (draining) {
+                // left to the next node
+                releaseDedupKey(job)
+                return
+            }
             doSchedule new PersistentJobRunner(job)
         } else {
             doSchedule new JobRunner(job)
@@ -157,87 +501,514 @@ class DefaultJobScheduler implements JobScheduler {
     }
 
     private void doSchedule(JobRunner jobRunner) {
-        long diff = Math.max(0, jobRunner.job.nextTry.time - System.currentTimeMillis())
-        LOGGER.info("Scheduling: ${jobRunner.job} in ${diff / 1000}s")
-        if (diff == 0 && fallbackExecutor) {
-            FutureTask<?> future = new FutureTask(jobRunner, null) {
-                @Override
-                protected void done() {
-                    try {
-                        get()
-                    } catch (ExecutionException e) {
-                        throw e.cause
-                    } catch (CancellationException ignored) {
+        doSchedule(jobRunner, jobRunner.job.nextTry.time - System.currentTimeMillis(), Level.INFO)
+    }
 
-                    }
-                }
-            }
+    private void doSchedule(JobRunner jobRunner, long delay, Level level) {
+        if (draining) {
+            // persisted jobs are rescheduled from the repository by the next node
+            LOGGER.fine("Not scheduling ${jobRunner.job} while draining")
+            // a job rescheduled in place leaves its previous bucket
+            scheduledJobs.remove(jobRunner.job.id)
+            return
+        }
+        long diff = Math.max(0, delay)
+        if (!jobExecutor && (!fallbackExecutor || diff > 0)) {
+            // retries and next occurrences of the jobs run by the fallback executor
+            throw new IllegalStateException("Scheduler disabled ('tajin.async.scheduler.enabled' is false): unable to schedule ${jobRunner.job} in ${diff}ms")
+        }
+        if (LOGGER.isLoggable(level)) {
+            LOGGER.log(level, "Scheduling: ${jobRunner.job} in ${diff / 1000}s")
+        }
+        if (diff == 0) {
+            // due jobs skip the timer, they run like the others on the job executor
+            FutureTask<?> future = new FutureTask(jobRunner, null)
             scheduledJobs.put(jobRunner.job.id, new Bucket(
                 job: jobRunner.job,
-                future: future
+                runner: jobRunner,
+                timeout: new ExecutorJobTimer.FutureTimeout(future)
             ))
-            fallbackExecutor.execute(future)
+            (jobExecutor ?: fallbackExecutor).execute(future)
         } else {
-            Future<?> future = executorService.schedule(jobRunner, diff, TimeUnit.MILLISECONDS)
-            if (!future.done) {
+            Timeout timeout = timer.schedule(jobRunner, diff, TimeUnit.MILLISECONDS)
+            if (!timeout.done) {
                 scheduledJobs.put(jobRunner.job.id, new Bucket(
                     job: jobRunner.job,
-                    future: future
+                    runner: jobRunner,
+                    timeout: timeout
                 ))
             }
         }
 
     }
 
+    /**
+     * @return false if another scheduled job holds the dedup key of {@code job}
+     */
+    private boolean claimDedupKey(TriggeredScheduledJob job) {
+        if (job.source.dedupKey == null) {
+            return true
+        }
+        String owner = dedupIndex.putIfAbsent(job.source.dedupKey, job.id)
+        return owner == null || owner == job.id
+    }
+
+    private void releaseDedupKey(TriggeredScheduledJob job) {
+        if (job.source.dedupKey != null) {
+            dedupIndex.remove(job.source.dedupKey, job.id)
+        }
+    }
+
+    private RetryBudget retryBudgetFor(String name) {
+        if (retryBudgetPercent < 0) {
+            return null
+        }
+        RetryBudget budget = retryBudgets.get(name)
+        if (budget == null) {
+            budget = new RetryBudget(retryBudgetPercent / 100d, retryBudgetMinPerSecond)
+            RetryBudget previous = retryBudgets.putIfAbsent(name, budget)
+            if (previous != null) {
+                budget = previous
+            }
+        }
+        return budget
+    }
+
+    /**
+     * Delay before the next retry of a failed job: the backoff of the job, or the shed delay if the retry budget of
+     * its name is exhausted, so that retries do not amplify the outage of a dependency.
+     */
+    private long retryDelay(TriggeredScheduledJob job, long previousDelay) {
+        long delay = job.source.retryDelayMillis(job.currentRetry, previousDelay)
+        RetryBudget budget = retryBudgetFor(job.source.name)
+        if (budget != null && job.retryable && !budget.tryRetry()) {
+            long half = shedDelay.intdiv(2) as long
+            delay = Math.max(delay, half + ThreadLocalRandom.current().nextLong(shedDelay - half + 1))
+        }
+        return delay
+    }
+
+    /**
+     * Acquires the lease of a job and renews it every third of its TTL until it is unlocked
+     *
+     * @return null if another node holds the lease
+     */
+    private LeaseLock acquireLease(TriggeredScheduledJob job) {
+        Lease lease = leaseManager.tryAcquire(job.id, leaseOwner, leaseTtl, TimeUnit.MILLISECONDS)
+        if (lease == null) {
+            return null
+        }
+        job.fencingToken = lease.fencingToken
+        LeaseLock lock = new LeaseLock(lease)
+        long period = Math.max(1L, leaseTtl.intdiv(3) as long)
+        lock.renewal = leaseRenewer.scheduleAtFixedRate(lock, period, period, TimeUnit.MILLISECONDS)
+        return lock
+    }
+
+    private class LeaseLock implements Lock, Runnable {
+        final Lease lease
+        ScheduledFuture<?> renewal
+        volatile boolean lost
+
+        LeaseLock(Lease lease) {
+            this.lease = lease
+        }
+
+        /**
+         * Renews the lease
+         */
+        @Override
+        void run() {
+            try {
+                if (!leaseManager.renew(lease, leaseTtl, TimeUnit.MILLISECONDS)) {
+                    lost = true
+                    renewal.cancel(false)
+                    LOGGER.warning("Lease lost for job ${lease.key} (token ${lease.fencingToken}): another node may run it")
+                }
+            } catch (Throwable e) {
+                // retried at the next period, until the lease expires
+                LOGGER.log(Level.WARNING, "Unable to renew lease of job ${lease.key}: ${e.message}", e)
+            }
+        }
+
+        @Override
+        void unlock() {
+            renewal.cancel(false)
+            if (!lost) {
+                leaseManager.release(lease)
+            }
+        }
+    }
+
+    private static boolean isLost(Lock lock) {
+        return lock instanceof LeaseLock && ((LeaseLock) lock).lost
+    }
+
+    private JobThrottle throttleFor(String name) {
+        JobThrottle throttle = throttles.get(name)
+        if (throttle == null) {
+            String prefix = 'tajin.async.scheduler.jobs.' + name
+            int maxConcurrent = settings.getInt(prefix + '.maxConcurrent', 0)
+            double rate = Double.parseDouble(settings.getString(prefix + '.ratePerSecond', '0'))
+            int burst = settings.getInt(prefix + '.burst', Math.max(1, Math.ceil(rate) as int))
+            if (maxConcurrent < 0) throw new IllegalArgumentException("Invalid max concurrency: " + maxConcurrent + ". '" + prefix + ".maxConcurrent' must be positive.")
+            if (rate < 0) throw new IllegalArgumentException("Invalid rate: " + rate + ". '" + prefix + ".ratePerSecond' must be positive.")
+            if (rate > 0 && !timer) {
+                // a job deferred for its token is run again by the timer
+                LOGGER.warning("Scheduler disabled ('tajin.async.scheduler.enabled' is false): ignoring '" + prefix + ".ratePerSecond'")
+                rate = 0
+            }
+            JobThrottle previous = throttles.putIfAbsent(name, throttle = new JobThrottle(maxConcurrent, rate, burst))
+            if (previous) throttle = previous
+        }
+        return throttle
+    }
+
+    private JobBatcher batcherFor(final String name) {
+        JobBatcher batcher = batchers.get(name)
+        if (batcher == null) {
+            String prefix = 'tajin.async.scheduler.jobs.' + name
+            int batchSize = listener instanceof BatchJobListener ? settings.getInt(prefix + '.batchSize', 1) : 1
+            long linger = settings.getLong(prefix + '.batchLinger', 10)
+            if (batchSize <= 0) throw new IllegalArgumentException("Invalid batch size: " + batchSize + ". '" + prefix + ".batchSize' must be greater than 0.")
+            if (linger < 0) throw new IllegalArgumentException("Invalid linger: " + linger + ". '" + prefix + ".batchLinger' must be positive.")
+            JobBatcher previous = batchers.putIfAbsent(name, batcher = new JobBatcher(batchSize, linger, jobExecutor, timer, new JobBatcher.Handler() {
+                @Override
+                void handle(List<Runnable> batch) {
+                    executeBatch(name, batch)
+                }
+            }))
+            if (previous) batcher = previous
+        }
+        return batcher
+    }
+
+    /**
+     * Runs the jobs of a batch with a single call to the {@link BatchJobListener}, then completes, retries or
+     * reschedules each of them like a single job
+     */
+    private void executeBatch(String name, List<Runnable> batch) {
+        JobThrottle throttle = throttleFor(name)
+        List<JobRunner> runners = []
+        List<Lock> locks = []
+        try {
+            for (Runnable r : batch) {
+                JobRunner runner = (JobRunner) r
+                try {
+                    Lock lock = runner.cancelled ? null : runner.acquireLock()
+                    if (lock && !runner.start()) {
+                        lock.unlock()
+                    } else if (lock) {
+                        runners << runner
+                        locks << lock
+                    }
+                } catch (Throwable e) {
+                    LOGGER.log(Level.SEVERE, "Unable to lock job ${runner.job.id} (${name}): ${e.message}", e)
+                }
+            }
+            if (!runners) {
+                return
+            }
+            long[] started = new long[runners.size()]
+            for (int i = 0; i < runners.size(); i++) {
+                started[i] = runners[i].begin()
+            }
+            Map<TriggeredScheduledJob, Throwable> failures
+            boolean batchFailed = false
+            try {
+                failures = ((BatchJobListener) listener).onJobsTriggered(runners.collect { it.job }) ?: [:]
+            } catch (Throwable err) {
+                LOGGER.log(Level.SEVERE, "Batch of ${runners.size()} jobs (${name}) failed: ${err.message}", err)
+                failures = runners.collectEntries { [it.job, err] }
+                batchFailed = true
+            }
+            nBatches.incrementAndGet()
+            for (int i = 0; i < runners.size(); i++) {
+                JobRunner runner = runners[i]
+                try {
+                    Throwable err = failures.get(runner.job)
+                    if (err) {
+                        if (!batchFailed) {
+                            LOGGER.log(Level.SEVERE, "Job ${runner.job.id} (${name}) failed: ${err.message}", err)
+                        }
+                        runner.failed(locks[i], started[i], err)
+                    } else {
+                        runner.succeeded(locks[i], started[i])
+                    }
+                } catch (Throwable e) {
+                    LOGGER.log(Level.SEVERE, "Job ${runner.job.id} (${name}) failed: ${e.message}", e)
+                } finally {
+                    runner.end(locks[i])
+                }
+            }
+        } finally {
+            batch.each { release(throttle) }
+        }
+    }
+
+    /**
+     * Releases the slot of a job and runs again the next job waiting for one
+     */
+    private void release(JobThrottle throttle) {
+        JobRunner next = (JobRunner) throttle.release()
+        while (next != null && next.cancelled) {
+            next = (JobRunner) throttle.nextWaiting()
+        }
+        if (next != null) {
+            (jobExecutor ?: fallbackExecutor).execute(next)
+        }
+    }
+
     private class JobRunner implements Runnable {
         final TriggeredScheduledJob job
 
+        /**
+         * Set when the job is cancelled: recurring jobs reuse their runner from one occurrence to the next
+         */
+        volatile boolean cancelled
+
+        /**
+         * Set when the job was deferred by the rate limit of its name, until it runs
+         */
+        boolean tokenReserved
+
+        /**
+         * Set while the listener runs the job
+         */
+        volatile boolean running
+
         JobRunner(TriggeredScheduledJob job) {
             this.job = job
         }
 
+        /**
+         * Marks the job as running, unless it was cancelled
+         */
+        synchronized boolean start() {
+            if (cancelled) {
+                return false
+            }
+            running = true
+            nRunning.incrementAndGet()
+            return true
+        }
+
+        /**
+         * Cancels the job, once its repository update is done if it is being rescheduled
+         */
+        synchronized void cancel() {
+            cancelled = true
+        }
+
+        /**
+         * @return true if the job was cancelled, false if it already runs
+         */
+        synchronized boolean cancelIfNotStarted() {
+            if (running) {
+                return false
+            }
+            cancelled = true
+            return true
+        }
+
         @Override
         final void run() {
-            Lock lock = listener.tryLock(job)
+            if (cancelled) {
+                return
+            }
+            JobThrottle throttle = throttleFor(job.source.name)
+            long wait = throttle.tryAcquire(this, tokenReserved)
+            if (wait != 0) {
+                // deferred without holding the thread: queued until a slot is released, or waiting for its token
+                statsFor(job.source.name).deferred.incrementAndGet()
+                if (wait > 0) {
+                    tokenReserved = true
+                    timer.schedule(this, wait, TimeUnit.NANOSECONDS)
+                }
+                return
+            }
+            tokenReserved = false
+            JobBatcher batcher = batcherFor(job.source.name)
+            if (batcher.enabled) {
+                // the slot is released once the batch has run
+                batcher.add(this)
+                return
+            }
+            try {
+                execute()
+            } catch (Throwable e) {
+                // the listener was notified: only log, whatever the executor running the job
+                LOGGER.log(Level.SEVERE, "Job ${job.id} (${job.source.name}) failed: ${e.message}", e)
+            } finally {
+                release(throttle)
+            }
+        }
+
+        void execute() {
+            Lock lock = acquireLock()
+            if (lock && !start()) {
+                lock.unlock()
+                return
+            }
             if (lock) {
-                LOGGER.info("Lock obtained for job ${job.id}")
+                long started = begin()
                 try {
-                    nRunning.incrementAndGet()
                     listener.onJobTriggered(job)
-                    scheduledJobs.remove(job.id)
-                    job.completionDate = new Date()
-                    onComplete()
+                    succeeded(lock, started)
                 } catch (Throwable err) {
-                    scheduledJobs.remove(job.id)
-                    nFailed.incrementAndGet()
-                    job.currentRetry++
-                    job.lastTry = new Date()
-                    job.nextTry = new Date(System.currentTimeMillis() + job.source.retryDelaySecs * 1000)
-                    onFailure()
-                    listener.onJobFailure(job, err)
-                    if (job.retryable) {
-                        doSchedule this
-                    } else {
-                        onAbandon()
-                    }
+                    failed(lock, started, err)
                     throw err
                 } finally {
-                    nRunning.decrementAndGet()
-                    nRan.incrementAndGet()
-                    lock.unlock()
+                    end(lock)
                 }
-            } else {
+            }
+        }
+
+        /**
+         * @return the lock of the job, or null if it must not run now: it is then rescheduled or removed
+         */
+        Lock acquireLock() {
+            Lock lock = leaseManager ? acquireLease(job) : listener.tryLock(job)
+            if (lock && leaseManager && !isCurrent()) {
+                // another node ran the job since it was loaded
+                lock.unlock()
+                return null
+            }
+            if (lock) {
+                LOGGER.info("Lock obtained for job ${job.id}")
+                return lock
+            }
+            boolean rescheduled = false
+            if (!cancelled && job.advance(System.currentTimeMillis())) {
+                // another node runs this occurrence of the recurring job: wait for the next one
+                rescheduled = reschedule(job.nextTry.time - System.currentTimeMillis(), Level.FINE)
+            } else if (!cancelled && leaseManager && job.source.persisted) {
+                // the node holding the lease may crash: try again once the lease would have expired
+                rescheduled = reschedule(leaseTtl, Level.FINE)
+            }
+            if (!rescheduled) {
                 // remove the job, lock cannot be obtained
                 cancel([job.id], false)
             }
+            return null
+        }
+
+        /**
+         * @return the start time of the job, in nanoseconds
+         */
+        long begin() {
+            statsFor(job.source.name).lateness.record(System.currentTimeMillis() - job.nextTry.time)
+            if (job.currentRetry == 0) {
+                retryBudgetFor(job.source.name)?.onAttempt()
+            }
+            return System.nanoTime()
         }
 
+        void succeeded(Lock lock, long started) {
+            statsFor(job.source.name).duration.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started))
+            if (isLost(lock)) {
+                // the new owner of the lease handles the job from now on
+                scheduledJobs.remove(job.id)
+                LOGGER.warning("Job ${job.id} completed after losing its lease: leaving it to the new owner")
+                releaseDedupKey(job)
+            } else if (!scheduleNextOccurrence()) {
+                scheduledJobs.remove(job.id)
+                job.completionDate = new Date()
+                try {
+                    onComplete()
+                } finally {
+                    // once the repository no longer holds the job
+                    releaseDedupKey(job)
+                }
+            }
+        }
+
+        void failed(Lock lock, long started, Throwable err) {
+            JobStats stats = statsFor(job.source.name)
+            stats.duration.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started))
+            long previousDelay = job.lastTry && job.currentRetry > 0 ? job.nextTry.time - job.lastTry.time : 0
+            nFailed.incrementAndGet()
+            if (isLost(lock)) {
+                scheduledJobs.remove(job.id)
+                LOGGER.warning("Job ${job.id} failed after losing its lease: leaving it to the new owner")
+                releaseDedupKey(job)
+                return
+            }
+            job.currentRetry++
+            job.lastTry = new Date()
+            job.nextTry = new Date(job.lastTry.time + retryDelay(job, previousDelay))
+            synchronized (this) {
+                // the bucket stays in place meanwhile: a cancellation waits for the update, then deletes the job
+                if (!cancelled) {
+                    onFailure()
+                }
+            }
+            listener.onJobFailure(job, err)
+            if (job.retryable && reschedule(job.nextTry.time - System.currentTimeMillis(), Level.INFO)) {
+                stats.retries.incrementAndGet()
+            } else if (!scheduleNextOccurrence()) {
+                scheduledJobs.remove(job.id)
+                try {
+                    onAbandon()
+                } finally {
+                    releaseDedupKey(job)
+                }
+            }
+        }
+
+        void end(Lock lock) {
+            running = false
+            nRunning.decrementAndGet()
+            nRan.incrementAndGet()
+            lock.unlock()
+        }
+
+        /**
+         * Schedules the job again in place of its current bucket, unless it was cancelled or has to wait while the
+         * scheduler is disabled: the callers then remove it
+         */
+        synchronized boolean reschedule(long delay, Level level) {
+            if (cancelled) {
+                return false
+            }
+            if (!timer && delay > 0) {
+                // run by the fallback executor: nothing would run it later
+                LOGGER.warning("Scheduler disabled ('tajin.async.scheduler.enabled' is false): abandoning ${job} instead of running it again in ${delay}ms")
+                return false
+            }
+            doSchedule(this, delay, level)
+            return true
+        }
+
+        /**
+         * Reschedules a recurring job in place, with the same runner and the same repository row. Its bucket stays
+         * in place until the new one replaces it, so that a cancellation meanwhile waits for the repository update
+         * and then deletes the job, instead of the update bringing it back.
+         */
+        synchronized boolean scheduleNextOccurrence() {
+            long now = System.currentTimeMillis()
+            if (cancelled || !job.advance(now)) {
+                return false
+            }
+            onReschedule()
+            return reschedule(job.nextTry.time - now, Level.FINE)
+        }
+
+        /**
+         * Called under the lease of the job, before running it
+         *
+         * @return false if the job must not run: completed, removed or rescheduled by another node
+         */
+        boolean isCurrent() { true }
+
         void onComplete() {}
 
         void onFailure() {}
 
         void onAbandon() {}
 
+        void onReschedule() {}
+
     }
 
     private class PersistentJobRunner extends JobRunner {
@@ -245,6 +1016,29 @@ class DefaultJobScheduler implements JobScheduler {
             super(job)
         }
 
+        @Override
+        boolean isCurrent() {
+            Collection<TriggeredScheduledJob> stored = repository.load([job.id])
+            TriggeredScheduledJob current = stored ? stored.first() : null
+            if (!current || !current.retryable) {
+                scheduledJobs.remove(job.id)
+                releaseDedupKey(job)
+                return false
+            }
+            if (current.nextTry.time > job.nextTry.time) {
+                // another node ran this attempt or occurrence: follow its schedule
+                job.currentRetry = current.currentRetry
+                job.lastTry = current.lastTry
+                job.nextTry = current.nextTry
+                if (!reschedule(job.nextTry.time - System.currentTimeMillis(), Level.FINE) && !cancelled) {
+                    scheduledJobs.remove(job.id)
+                    releaseDedupKey(job)
+                }
+                return false
+            }
+            return true
+        }
+
         @Override
         void onComplete() { repository.update(job) }
 
@@ -258,6 +1052,16 @@ class DefaultJobScheduler implements JobScheduler {
             }
         }
 
+        @Override
+        void onReschedule() {
+            try {
+                repository.update(job)
+            } catch (Throwable err) {
+                LOGGER.log(Level.SEVERE, err.message, err)
+                throw err
+            }
+        }
+
         @Override
         void onAbandon() {
             try {
@@ -270,9 +1074,22 @@ class DefaultJobScheduler implements JobScheduler {
 
     }
 
+    static final class JobStats {
+        /** delay between the due time of the jobs and their start, in milliseconds */
+        final LatencyHistogram lateness = new LatencyHistogram()
+        /** execution time of the jobs, in microseconds */
+        final LatencyHistogram duration = new LatencyHistogram()
+        final AtomicLong retries = new AtomicLong()
+        /** number of times a job was deferred by its concurrency or rate limit */
+        final AtomicLong deferred = new AtomicLong()
+
+        String summary() { "retries=${retries.get()} deferred=${deferred.get()} lateness: ${lateness.summary('ms')} duration: ${duration.summary('us')}" }
+    }
+
     static final class Bucket {
         TriggeredScheduledJob job
-        Future<?> future
+        JobRunner runner
+        Timeout timeout
     }
 
     // stats
@@ -280,10 +1097,104 @@ class DefaultJobScheduler implements JobScheduler {
     private final AtomicLong nRunning = new AtomicLong()
     private final AtomicLong nRan = new AtomicLong()
     private final AtomicLong nFailed = new AtomicLong()
+    private final AtomicLong nRecovered = new AtomicLong()
+    private final AtomicLong nDeduplicated = new AtomicLong()
+    private final AtomicLong nBatches = new AtomicLong()
+    private final ConcurrentMap<String, JobStats> statsByJobName = new ConcurrentHashMap<>()
+
+    private JobStats statsFor(String name) {
+        JobStats stats = statsByJobName.get(name)
+        if (stats == null) {
+            JobStats previous = statsByJobName.putIfAbsent(name, stats = new JobStats())
+            if (previous) stats = previous
+        }
+        return stats
+    }
 
     @JmxProperty
     long getScheduledCount() { scheduledJobs.size() }
 
+    @JmxProperty
+    int getTimerPendingCount() { timer ? timer.pendingCount : 0 }
+
+    @JmxProperty
+    int getRepositoryPendingWrites() { repository instanceof WriteBehindJobRepository ? ((WriteBehindJobRepository) repository).pendingCount : 0 }
+
+    @JmxProperty
+    long getRepositoryBatchCount() { repository instanceof WriteBehindJobRepository ? ((WriteBehindJobRepository) repository).batchCount : 0 }
+
+    @JmxProperty
+    long getRepositoryFailedWrites() { repository instanceof WriteBehindJobRepository ? ((WriteBehindJobRepository) repository).failedWriteCount : 0 }
+
+    @JmxProperty
+    long getRetryCount() { statsByJobName.values().sum(0L) { it.retries.get() } as long }
+
+    @JmxProperty
+    Collection<String> getJobStats() {
+        return statsByJobName.collect { k, v -> "${k} ${v.summary()}" as String }.sort()
+    }
+
+    /**
+     * @return how long the most overdue job waiting to run has been due, in milliseconds
+     */
+    @JmxProperty
+    long getOldestPendingJobAge() {
+        long now = System.currentTimeMillis()
+        long oldest = now
+        for (Bucket b : scheduledJobs.values()) {
+            if (!b.runner.running) {
+                oldest = Math.min(oldest, b.job.nextTry.time)
+            }
+        }
+        return now - oldest
+    }
+
+    /**
+     * @return number of batches run by a {@link BatchJobListener}
+     */
+    @JmxProperty
+    long getBatchCount() { nBatches.get() }
+
+    /**
+     * @return number of due jobs waiting for their batch to be full or to linger
+     */
+    @JmxProperty
+    int getBatchingJobCount() { batchers.values().sum(0) { it.pendingCount } as int }
+
+    @JmxProperty
+    int getThrottledJobCount() { throttles.values().sum(0) { it.waitingCount } as int }
+
+    @JmxProperty
+    long getShedRetryCount() { retryBudgets.values().sum(0L) { RetryBudget b -> b.shedCount } as long }
+
+    @JmxProperty
+    long getExecutorQueueDepth() {
+        if (jobExecutor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) jobExecutor).queue.size()
+        if (jobExecutor instanceof ForkJoinPool) return ((ForkJoinPool) jobExecutor).queuedSubmissionCount + ((ForkJoinPool) jobExecutor).queuedTaskCount
+        if (jobExecutor instanceof VirtualThreadExecutor) return ((VirtualThreadExecutor) jobExecutor).waitingCount
+        return 0
+    }
+
+    @JmxProperty
+    int getExecutorActiveThreads() {
+        if (jobExecutor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) jobExecutor).activeCount
+        if (jobExecutor instanceof ForkJoinPool) return ((ForkJoinPool) jobExecutor).activeThreadCount
+        if (jobExecutor instanceof VirtualThreadExecutor) return ((VirtualThreadExecutor) jobExecutor).activeCount
+        return 0
+    }
+
+    @JmxProperty
+    boolean isRecovering() { recovering }
+
+    @JmxProperty
+    long getRecoveredCount() { nRecovered.get() }
+
+    /**
+     * @return number of jobs not scheduled because a pending job had the same dedup key
+     */
+    @JmxProperty
+    long getDeduplicatedCount() { nDeduplicated.get() }
+
     @JmxProperty
     long getRunningCount() { nRunning.get() }
 
@@ -305,4 +1216,16 @@ class DefaultJobScheduler implements JobScheduler {
     @JmxMethod
     void cancel(String jobId) { cancel([jobId]) }
 
+    @JmxMethod
+    void resetStats() { statsByJobName.clear() }
+
+    /**
+     * Drains the scheduler within <code>tajin.async.scheduler.drain.timeout</code>, see {@link #drain(long, TimeUnit)}
+     */
+    @JmxMethod
+    boolean drain() { drain(drainTimeout, TimeUnit.MILLISECONDS) }
+
+    @JmxProperty
+    boolean isDraining() { draining }
+
 }
@@ -15,6 +15,8 @@
  */
 package com.ovea.tajin.framework.async
 
+import com.google.common.util.concurrent.ListenableFuture
+
 /**
  * Dispatcher inyerface used to send events
  *
@@ -32,4 +34,22 @@ public interface Dispatcher {
      */
     void broadcast(Object event)
 
+    /**
+     * Broadcast an event like {@link #broadcast(Object)} and get notified when all subscribers are done.
+     * The returned future completes when every subscriber has handled the event, or fails with a {@link BroadcastException}
+     * holding all the subscriber failures. If there is no subscriber, the future is already completed.
+     *
+     * @param event Event object to broadcast
+     * @return Future completed when the event has been handled by all its subscribers
+     */
+    ListenableFuture<Void> broadcastAsync(Object event)
+
+    /**
+     * Broadcast several events at once. Each subscriber receives its events in the collection order, in a single
+     * task instead of one task per event.
+     *
+     * @param events Event objects to broadcast
+     */
+    void broadcastAll(Collection<?> events)
+
 }
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * Thrown by {@link JobRepository#insert} when a pending job already has the {@link ScheduledJob#dedupKey} of the
+ * inserted one.
+ *
+ * @date 2026-10-18
+ */
+class DuplicateJobException extends RuntimeException {
+
+    final String dedupKey
+
+    /**
+     * Id of the pending job holding the key, if known
+     */
+    final String existingId
+
+    DuplicateJobException(String dedupKey, String existingId) {
+        super(("A pending job already has the dedup key '${dedupKey}'" + (existingId ? ": ${existingId}" : '')) as String)
+        this.dedupKey = dedupKey
+        this.existingId = existingId
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * {@link JobTimer} backed by a {@link ScheduledThreadPoolExecutor}: each task is a heap entry.
+ * Tasks run on the timer threads, or are handed to a separate job executor when one is given.
+ *
+ * @date 2026-10-18
+ */
+class ExecutorJobTimer implements JobTimer {
+
+    private final ScheduledThreadPoolExecutor executorService
+    private final ExecutorService jobExecutor
+
+    /**
+     * @param executorService timer threads
+     * @param jobExecutor executor running the fired tasks, or null to run them on the timer threads
+     */
+    ExecutorJobTimer(ScheduledThreadPoolExecutor executorService, ExecutorService jobExecutor) {
+        this.executorService = executorService
+        this.jobExecutor = jobExecutor
+        executorService.removeOnCancelPolicy = true
+    }
+
+    @Override
+    Timeout schedule(final Runnable task, long delay, TimeUnit unit) {
+        return new FutureTimeout(executorService.schedule(jobExecutor ? new Runnable() {
+            @Override
+            void run() {
+                // the timer thread only fires the task
+                jobExecutor.execute(task)
+            }
+        } : task, delay, unit))
+    }
+
+    @Override
+    int getPendingCount() { executorService.queue.size() }
+
+    @Override
+    void shutdown() { executorService.shutdown() }
+
+    @Override
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException { executorService.awaitTermination(timeout, unit) }
+
+    /**
+     * {@link Timeout} of a task submitted to an executor
+     */
+    static final class FutureTimeout implements Timeout {
+        private final Future<?> future
+
+        FutureTimeout(Future<?> future) {
+            this.future = future
+        }
+
+        @Override
+        boolean cancel() { future.cancel(false) }
+
+        @Override
+        boolean isDone() { future.done }
+    }
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import com.ovea.tajin.framework.core.Settings
+
+/**
+ * Kind of threads backing the <code>@AsyncExecutor</code> and the job execution, selected by <code>tajin.async.executor.type</code>
+ *
+ * @date 2026-10-18
+ */
+enum ExecutorType {
+
+    /**
+     * Pool of platform threads (default)
+     */
+    POOL,
+
+    /**
+     * One virtual thread per task, with the configured pool size as concurrency cap. Requires Java 21 or later:
+     * falls back to {@link #POOL} otherwise.
+     */
+    VIRTUAL
+
+    static ExecutorType from(Settings settings) {
+        String type = settings.getString('tajin.async.executor.type', POOL.name())
+        return valueOf(type.trim().toUpperCase(Locale.ENGLISH))
+    }
+
+}
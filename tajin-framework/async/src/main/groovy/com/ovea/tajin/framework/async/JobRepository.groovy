@@ -20,6 +20,9 @@ package com.ovea.tajin.framework.async
  * @date 2013-06-06
  */
 interface JobRepository {
+    /**
+     * @throws DuplicateJobException if a pending job has the same {@link ScheduledJob#dedupKey}, typically through a unique constraint
+     */
     void insert(TriggeredScheduledJob job)
 
     void update(TriggeredScheduledJob job)
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Timer backend of the {@link DefaultJobScheduler}: fires the jobs when they are due.
+ * <p>
+ * Selected with {@code tajin.async.scheduler.timer}: {@code executor} ({@link ExecutorJobTimer}) or
+ * {@code wheel} ({@link TimingWheelJobTimer}).
+ *
+ * @date 2026-10-18
+ */
+interface JobTimer {
+
+    /**
+     * Runs {@code task} once {@code delay} has elapsed
+     *
+     * @return handle used to cancel the task
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit)
+
+    /**
+     * @return number of tasks waiting to be fired
+     */
+    int getPendingCount()
+
+    /**
+     * Stops firing tasks. Pending tasks are discarded.
+     */
+    void shutdown()
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+
+}
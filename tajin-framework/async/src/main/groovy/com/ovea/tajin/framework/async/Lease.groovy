@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import groovy.transform.ToString
+
+/**
+ * Lease on a key of a {@link LeaseManager}
+ *
+ * @date 2026-10-18
+ */
+@ToString(includeNames = true)
+class Lease {
+
+    final String key
+
+    final String owner
+
+    /**
+     * Strictly greater than the tokens of all the previous leases of the {@link LeaseManager}
+     */
+    final long fencingToken
+
+    /**
+     * Expiration time in epoch milliseconds, extended by renewals
+     */
+    volatile long expiresAt
+
+    Lease(String key, String owner, long fencingToken, long expiresAt) {
+        this.key = key
+        this.owner = owner
+        this.fencingToken = fencingToken
+        this.expiresAt = expiresAt
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Store of the leases taken by the nodes running jobs, bound to replace <code>JobListener.tryLock</code> by
+ * expiring locks. A lease expires if its owner stops renewing it (i.e. it crashed), and each lease gets a
+ * fencing token greater than the ones of all the previous leases, so that a resource written by the jobs can
+ * reject the writes of an owner which lost its lease.
+ *
+ * @date 2026-10-18
+ */
+interface LeaseManager {
+
+    /**
+     * @return a new lease on {@code key}, or null if an unexpired lease exists on it, even held by the same owner
+     * (which extends it with {@link #renew})
+     */
+    Lease tryAcquire(String key, String owner, long ttl, TimeUnit unit)
+
+    /**
+     * Extends a lease, if it is still the current lease of its key
+     *
+     * @return false if the lease was lost: another owner acquired the key after it expired
+     */
+    boolean renew(Lease lease, long ttl, TimeUnit unit)
+
+    void release(Lease lease)
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * A {@link JobRepository} able to page through its pending jobs. Implementing it is optional: the scheduler recovers
+ * the pending jobs with {@link JobRepository#listPendingJobs()} otherwise, loading them all at once.
+ *
+ * @date 2026-10-18
+ */
+interface PagedJobRepository extends JobRepository {
+
+    /**
+     * Pages through the pending jobs, ordered by id, so that they can be recovered without loading them all at once
+     *
+     * @param afterId id of the last job of the previous page, or null for the first page
+     * @param limit max number of jobs to return
+     * @return the pending jobs with an id greater than {@code afterId}, ordered by id
+     */
+    List<TriggeredScheduledJob> listPendingJobs(String afterId, int limit)
+
+}
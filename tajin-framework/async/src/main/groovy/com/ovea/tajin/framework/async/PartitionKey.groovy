@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.lang.annotation.ElementType
+import java.lang.annotation.Retention
+import java.lang.annotation.RetentionPolicy
+import java.lang.annotation.Target
+
+/**
+ * Marks the field of an event holding its partition key. When partitioned dispatch is enabled
+ * (<code>tajin.async.dispatcher.partitions</code>), events with the same key are delivered in order,
+ * one at a time.
+ *
+ * @date 2026-10-18
+ * @see PartitionedEvent
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target([ElementType.FIELD])
+public @interface PartitionKey {}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import com.google.common.base.Function
+import com.google.common.base.Optional
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheLoader
+import com.google.common.cache.LoadingCache
+
+import java.lang.reflect.Field
+
+/**
+ * Extracts the partition key of an event, either from {@link PartitionedEvent#getPartitionKey()} or from
+ * the field annotated with {@link PartitionKey}. The field lookup is done once per event class.
+ *
+ * @date 2026-10-18
+ */
+class PartitionKeys implements Function<Object, Object> {
+
+    private static final LoadingCache<Class<?>, Optional<Field>> keyFields = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<Class<?>, Optional<Field>>() {
+        @Override
+        Optional<Field> load(Class<?> eventClass) throws Exception {
+            for (Class<?> c = eventClass; c != null && c != Object; c = c.superclass) {
+                Field f = c.declaredFields.find { it.isAnnotationPresent(PartitionKey) }
+                if (f) {
+                    f.accessible = true
+                    return Optional.of(f)
+                }
+            }
+            return Optional.absent()
+        }
+    })
+
+    @Override
+    Object apply(Object event) {
+        if (event instanceof PartitionedEvent) {
+            return ((PartitionedEvent) event).partitionKey
+        }
+        Optional<Field> f = keyFields.getUnchecked(event.class)
+        return f.present ? f.get().get(event) : null
+    }
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * Event carrying a partition key. When partitioned dispatch is enabled
+ * (<code>tajin.async.dispatcher.partitions</code>), events with the same key are delivered in order,
+ * one at a time, while events with different keys are delivered in parallel.
+ *
+ * @date 2026-10-18
+ * @see PartitionKey
+ */
+interface PartitionedEvent {
+
+    /**
+     * @return the key of the aggregate this event is about, or null to dispatch the event without ordering guarantee
+     */
+    Object getPartitionKey()
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * How the delay before retrying a failed job grows with its retries, from <code>ScheduledJob.retryDelaySecs</code>
+ *
+ * @date 2026-10-18
+ */
+enum RetryBackoff {
+
+    /**
+     * Always the base delay (default)
+     */
+    FIXED,
+
+    /**
+     * The base delay doubled at each retry
+     */
+    EXPONENTIAL,
+
+    /**
+     * A random delay between the base delay and three times the previous one, so that jobs failing together
+     * do not retry together
+     */
+    DECORRELATED_JITTER
+
+    /**
+     * @param base base delay in milliseconds
+     * @param previous previous retry delay in milliseconds, or 0 for the first retry
+     * @param retry number of the retry, starting at 1
+     * @param cap max delay in milliseconds, or 0 for no max
+     */
+    long delayMillis(long base, long previous, int retry, long cap) {
+        long delay
+        switch (this) {
+            case EXPONENTIAL:
+                int shift = Math.min(Math.max(retry - 1, 0), Long.numberOfLeadingZeros(Math.max(base, 1)) - 1)
+                delay = base << shift
+                break
+            case DECORRELATED_JITTER:
+                long upper = Math.max(base, previous) * 3
+                delay = base >= upper ? base : ThreadLocalRandom.current().nextLong(base, upper)
+                break
+            default:
+                delay = base
+        }
+        return cap > 0 ? Math.min(delay, cap) : delay
+    }
+
+}
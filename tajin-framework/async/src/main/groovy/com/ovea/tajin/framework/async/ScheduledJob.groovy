@@ -32,7 +32,7 @@ class ScheduledJob {
     String name
 
     /**
-     * Optional data for the job to be executed. Should be serializable.
+     * Optional data for the job to be executed: nulls, booleans, numbers, strings, dates, byte arrays, collections and maps of them (see {@link JobDataCodec}). Other values should be serializable.
      */
     Map data = [:]
 
@@ -46,6 +46,16 @@ class ScheduledJob {
      */
     boolean persisted
 
+    /**
+     * For persisted jobs, wait for the job to be written to the repository when scheduling it, even if repository writes are batched. False by default.
+     */
+    boolean durable
+
+    /**
+     * Optional idempotency key: while a job with the same key is pending, scheduling another one has no effect. Persisted jobs are also checked by the repository.
+     */
+    String dedupKey
+
     /**
      * Max retry count for the job execution if fails. Default to INFINIT_RETRY.
      */
@@ -56,4 +66,64 @@ class ScheduledJob {
      */
     long retryDelaySecs = 300
 
+    /**
+     * How the retry delay grows from retryDelaySecs at each retry. Default to FIXED.
+     */
+    RetryBackoff retryBackoff = RetryBackoff.FIXED
+
+    /**
+     * Max duration to wait in seconds before a retry, 0 for no max
+     */
+    long maxRetryDelaySecs
+
+    /**
+     * For recurring jobs, period in milliseconds between the start of two occurrences, counted from startDate. Missed occurrences are skipped.
+     */
+    long fixedRateMillis
+
+    /**
+     * For recurring jobs, delay in milliseconds between the end of an occurrence and the start of the next one
+     */
+    long fixedDelayMillis
+
+    /**
+     * For recurring jobs, cron expression of the occurrences after startDate, in the time zone of the JVM. See {@link CronExpression}.
+     */
+    String cron
+
+    private CronExpression cronExpression
+
+    void setCron(String cron) {
+        this.cronExpression = cron ? CronExpression.parse(cron) : null
+        this.cron = cron
+    }
+
+    /**
+     * @param retry number of the retry, starting at 1
+     * @param previousDelayMillis delay before the previous retry, or 0 for the first retry
+     * @return the delay in milliseconds before the given retry
+     */
+    long retryDelayMillis(int retry, long previousDelayMillis) {
+        return (retryBackoff ?: RetryBackoff.FIXED).delayMillis(retryDelaySecs * 1000, previousDelayMillis, retry, maxRetryDelaySecs * 1000)
+    }
+
+    boolean isRecurring() { fixedRateMillis > 0 || fixedDelayMillis > 0 || cronExpression != null }
+
+    /**
+     * @return the time of the occurrence following {@code now} in epoch milliseconds, or -1 if this job is not recurring
+     */
+    long nextFireTime(long now) {
+        if (fixedRateMillis > 0) {
+            long start = startDate.time
+            return now < start ? start : start + ((now - start).intdiv(fixedRateMillis) + 1) * fixedRateMillis
+        }
+        if (fixedDelayMillis > 0) {
+            return now + fixedDelayMillis
+        }
+        if (cronExpression != null) {
+            return cronExpression.nextFireTime(now, TimeZone.default)
+        }
+        return -1
+    }
+
 }
@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+/**
+ * Handle of a task scheduled on a {@link JobTimer}
+ *
+ * @date 2026-10-18
+ */
+interface Timeout {
+
+    /**
+     * Prevents the task from firing.
+     *
+     * @return false if the task has already fired or was already cancelled
+     */
+    boolean cancel()
+
+    /**
+     * @return true if the task has fired or was cancelled
+     */
+    boolean isDone()
+
+}
@@ -46,8 +46,30 @@ class TriggeredScheduledJob {
 
     Date completionDate
 
+    /**
+     * While the job runs with a {@link LeaseManager}, fencing token of its lease, to be passed to the resources it
+     * writes so that they reject the writes of a node which lost the lease. Not persisted.
+     */
+    long fencingToken
+
     boolean isRetryable() { lastTry == null || completionDate == null && (source.maxRetry == ScheduledJob.INFINITE_RETRY || currentRetry < source.maxRetry) }
 
+    /**
+     * Moves a recurring job to its next occurrence, resetting its retry state.
+     *
+     * @return false if the job is not recurring, has no next occurrence or was prevented from being rescheduled
+     */
+    boolean advance(long now) {
+        long next = completionDate == null ? source.nextFireTime(now) : -1
+        if (next < 0) {
+            return false
+        }
+        currentRetry = 0
+        lastTry = null
+        nextTry = new Date(next)
+        return true
+    }
+
     void preventReschedule() {
         completionDate = new Date()
     }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.util.concurrent.AbstractExecutorService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Executor starting one virtual thread per task, with a semaphore limiting how many tasks run at the same time.
+ * <p>
+ * Tasks over the limit wait for a permit in their own virtual thread, so submitting never blocks the caller.
+ * Virtual threads are only available from Java 21 on: the API is looked up by reflection and {@link #create(String, int)}
+ * returns null on older JVMs.
+ *
+ * @date 2026-10-18
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreadExecutor.name)
+
+    private final ExecutorService delegate
+    private final Semaphore permits
+    private final int maxConcurrency
+
+    private VirtualThreadExecutor(ExecutorService delegate, int maxConcurrency) {
+        this.delegate = delegate
+        this.maxConcurrency = maxConcurrency
+        this.permits = new Semaphore(maxConcurrency)
+    }
+
+    /**
+     * @param namePrefix prefix of the thread names, followed by a counter
+     * @param maxConcurrency max number of tasks running at the same time
+     * @return a new executor, or null if this JVM does not support virtual threads
+     */
+    static VirtualThreadExecutor create(String namePrefix, int maxConcurrency) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("Invalid concurrency: " + maxConcurrency)
+        try {
+            Class<?> builderClass = Class.forName('java.lang.Thread$Builder')
+            Object builder = Thread.getMethod('ofVirtual').invoke(null)
+            builder = builderClass.getMethod('name', String, long).invoke(builder, namePrefix, 0L)
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod('factory').invoke(builder)
+            Method newThreadPerTaskExecutor = Executors.getMethod('newThreadPerTaskExecutor', ThreadFactory)
+            return new VirtualThreadExecutor((ExecutorService) newThreadPerTaskExecutor.invoke(null, factory), maxConcurrency)
+        } catch (ClassNotFoundException | NoSuchMethodException ignored) {
+            return null
+        } catch (InvocationTargetException e) {
+            LOGGER.log(Level.WARNING, 'Unable to create virtual threads: ' + e.cause?.message, e.cause)
+            return null
+        }
+    }
+
+    @Override
+    void execute(final Runnable command) {
+        delegate.execute(new Runnable() {
+            @Override
+            void run() {
+                permits.acquire()
+                try {
+                    command.run()
+                } finally {
+                    permits.release()
+                }
+            }
+        })
+    }
+
+    /**
+     * @return number of tasks currently running
+     */
+    int getActiveCount() { maxConcurrency - permits.availablePermits() }
+
+    /**
+     * @return number of tasks waiting for a permit
+     */
+    int getWaitingCount() { permits.queueLength }
+
+    @Override
+    void shutdown() { delegate.shutdown() }
+
+    @Override
+    List<Runnable> shutdownNow() { delegate.shutdownNow() }
+
+    @Override
+    boolean isShutdown() { delegate.shutdown }
+
+    @Override
+    boolean isTerminated() { delegate.terminated }
+
+    @Override
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException { delegate.awaitTermination(timeout, unit) }
+
+}
@@ -0,0 +1,349 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import com.google.common.util.concurrent.SettableFuture
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.Condition
+import java.util.concurrent.locks.ReentrantLock
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * {@link JobRepository} decorator which group-commits the job state changes.
+ * <p>
+ * Inserts, updates and deletes are queued and written in the background with {@link BatchJobRepository#insertAll},
+ * {@link BatchJobRepository#updateAll} and {@link JobRepository#delete} once {@code batchSize} changes are pending or
+ * {@code flushInterval} milliseconds after the first one. Inserts and updates are written job by job if the
+ * delegate is not a {@link BatchJobRepository}. Changes of the same job are coalesced: only its last
+ * state is written, and a job inserted then deleted in the same batch is not written at all.
+ * <p>
+ * Reads ({@link #listPendingJobs()}, {@link #load(Collection)}...) first wait for the pending changes to be written.
+ * {@link #insert(TriggeredScheduledJob, boolean)} can wait for the insert to be written. If a batch fails, its
+ * changes are retried one by one and the failing ones are logged.
+ *
+ * @date 2026-10-18
+ */
+class WriteBehindJobRepository implements BatchJobRepository, PagedJobRepository {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindJobRepository.name)
+
+    final JobRepository delegate
+
+    private final int batchSize
+    private final long flushIntervalNanos
+    private final ReentrantLock lock = new ReentrantLock()
+    private final Condition notEmpty = lock.newCondition()
+    private final Condition flushed = lock.newCondition()
+    private final Thread writer
+
+    // guarded by lock
+    private Map<String, Write> pending = new LinkedHashMap<>()
+    private long enqueued
+    private long written
+    private boolean urgent
+    private boolean running = true
+    private boolean stopped
+
+    private final AtomicLong nBatches = new AtomicLong()
+    private final AtomicLong nFailures = new AtomicLong()
+
+    /**
+     * @param delegate repository to write to
+     * @param batchSize number of pending changes triggering a write
+     * @param flushInterval max time in milliseconds a change waits before being written
+     */
+    WriteBehindJobRepository(JobRepository delegate, int batchSize, long flushInterval) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Invalid batch size: " + batchSize)
+        if (flushInterval < 0) throw new IllegalArgumentException("Invalid flush interval: " + flushInterval)
+        this.delegate = delegate
+        this.batchSize = batchSize
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval)
+        this.writer = new Thread(new Runnable() {
+            @Override
+            void run() {
+                loop()
+            }
+        }, "${JobScheduler.simpleName}-writer")
+        writer.daemon = true
+        writer.start()
+    }
+
+    @Override
+    void insert(TriggeredScheduledJob job) { enqueue(Op.INSERT, job, null) }
+
+    /**
+     * @param durable if true, returns once the job has been written to the delegate
+     */
+    void insert(TriggeredScheduledJob job, boolean durable) {
+        if (!durable) {
+            insert(job)
+            return
+        }
+        SettableFuture<Void> done = SettableFuture.create()
+        enqueue(Op.INSERT, job, done)
+        try {
+            done.get()
+        } catch (ExecutionException e) {
+            throw e.cause
+        }
+    }
+
+    @Override
+    void insertAll(Collection<TriggeredScheduledJob> jobs) { jobs.each { enqueue(Op.INSERT, it, null) } }
+
+    @Override
+    void update(TriggeredScheduledJob job) { enqueue(Op.UPDATE, job, null) }
+
+    @Override
+    void updateAll(Collection<TriggeredScheduledJob> jobs) { jobs.each { enqueue(Op.UPDATE, it, null) } }
+
+    @Override
+    void delete(Collection<TriggeredScheduledJob> jobs) { jobs.each { enqueue(Op.DELETE, it, null) } }
+
+    @Override
+    Collection<TriggeredScheduledJob> listPendingJobs() {
+        flush()
+        return delegate.listPendingJobs()
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the delegate is not a {@link PagedJobRepository}
+     */
+    @Override
+    List<TriggeredScheduledJob> listPendingJobs(String afterId, int limit) {
+        if (!(delegate instanceof PagedJobRepository)) throw new UnsupportedOperationException("${delegate.class.name} does not page through the pending jobs")
+        flush()
+        return ((PagedJobRepository) delegate).listPendingJobs(afterId, limit)
+    }
+
+    @Override
+    Collection<TriggeredScheduledJob> load(Collection<String> ids) {
+        flush()
+        return delegate.load(ids)
+    }
+
+    /**
+     * Waits for the changes queued so far to be written
+     */
+    void flush() {
+        lock.lock()
+        try {
+            long target = enqueued
+            if (written < target) {
+                urgent = true
+                notEmpty.signal()
+                while (written < target && !stopped) {
+                    flushed.await()
+                }
+            }
+        } finally {
+            lock.unlock()
+        }
+    }
+
+    /**
+     * Writes the pending changes and stops the writer thread. Changes made afterwards are written synchronously.
+     */
+    void close(long timeout, TimeUnit unit) {
+        lock.lock()
+        try {
+            running = false
+            notEmpty.signal()
+        } finally {
+            lock.unlock()
+        }
+        writer.join(unit.toMillis(timeout))
+        if (writer.alive) {
+            LOGGER.severe("Unable to write the pending job changes after ${timeout} ${unit}")
+        }
+    }
+
+    /** number of changes waiting to be written */
+    int getPendingCount() {
+        lock.lock()
+        try {
+            return pending.size()
+        } finally {
+            lock.unlock()
+        }
+    }
+
+    long getBatchCount() { nBatches.get() }
+
+    long getFailedWriteCount() { nFailures.get() }
+
+    private void enqueue(Op op, TriggeredScheduledJob job, SettableFuture<Void> waiter) {
+        lock.lock()
+        try {
+            if (!stopped) {
+                enqueued++
+                Write w = pending.get(job.id)
+                if (w == null) {
+                    pending.put(job.id, w = new Write(op: op, job: job))
+                } else {
+                    w.count++
+                    w.job = job
+                    if (w.op == Op.INSERT && op == Op.DELETE) {
+                        // never written: nothing to do
+                        pending.remove(job.id)
+                        written += w.count
+                        w.done(null)
+                        waiter?.set(null)
+                        flushed.signalAll()
+                        return
+                    }
+                    if (w.op == Op.DELETE && op == Op.INSERT) {
+                        // the row is still there
+                        w.op = Op.UPDATE
+                    } else if (w.op != Op.INSERT) {
+                        w.op = op
+                    }
+                }
+                if (waiter) {
+                    w.waiters << waiter
+                    urgent = true
+                }
+                if (pending.size() == 1 || pending.size() >= batchSize || urgent) {
+                    notEmpty.signal()
+                }
+                return
+            }
+        } finally {
+            lock.unlock()
+        }
+        // writer stopped: write through
+        try {
+            apply(op, [job])
+            waiter?.set(null)
+        } catch (Throwable e) {
+            if (waiter) waiter.setException(e) else throw e
+        }
+    }
+
+    private void loop() {
+        while (true) {
+            Map<String, Write> batch
+            lock.lock()
+            try {
+                while (running && pending.isEmpty()) {
+                    notEmpty.await()
+                }
+                if (pending.isEmpty()) {
+                    stopped = true
+                    flushed.signalAll()
+                    return
+                }
+                long deadline = System.nanoTime() + flushIntervalNanos
+                long left
+                while (running && !urgent && pending.size() < batchSize && (left = deadline - System.nanoTime()) > 0) {
+                    notEmpty.awaitNanos(left)
+                }
+                batch = pending
+                pending = new LinkedHashMap<>()
+                urgent = false
+            } catch (InterruptedException ignored) {
+                running = false
+                continue
+            } finally {
+                lock.unlock()
+            }
+            write(batch.values())
+            lock.lock()
+            try {
+                written += batch.values().sum(0L) { it.count } as long
+                flushed.signalAll()
+            } finally {
+                lock.unlock()
+            }
+        }
+    }
+
+    private void write(Collection<Write> batch) {
+        nBatches.incrementAndGet()
+        Map<Op, List<Write>> byOp = batch.groupBy { it.op }
+        [Op.INSERT, Op.UPDATE, Op.DELETE].each { Op op ->
+            List<Write> writes = byOp[op]
+            if (writes) {
+                try {
+                    apply(op, writes.collect { it.job })
+                    writes.each { it.done(null) }
+                } catch (Throwable batchError) {
+                    LOGGER.log(batchError instanceof DuplicateJobException ? Level.FINE : Level.WARNING, "Unable to ${op} ${writes.size()} jobs at once, retrying one by one: ${batchError.message}", batchError)
+                    writes.each { Write w ->
+                        try {
+                            apply(op, [w.job])
+                            w.done(null)
+                        } catch (DuplicateJobException e) {
+                            // not a failure of the repository: the caller of a durable insert is told
+                            LOGGER.fine("Not inserting duplicate job ${w.job.id}: ${e.message}")
+                            w.done(e)
+                        } catch (Throwable e) {
+                            nFailures.incrementAndGet()
+                            LOGGER.log(Level.SEVERE, "Unable to ${op} job ${w.job.id}: ${e.message}", e)
+                            w.done(e)
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(Op op, List<TriggeredScheduledJob> jobs) {
+        switch (op) {
+            case Op.INSERT:
+                if (jobs.size() > 1 && delegate instanceof BatchJobRepository) {
+                    ((BatchJobRepository) delegate).insertAll(jobs)
+                } else {
+                    for (TriggeredScheduledJob job : jobs) {
+                        delegate.insert(job)
+                    }
+                }
+                break
+            case Op.UPDATE:
+                if (jobs.size() > 1 && delegate instanceof BatchJobRepository) {
+                    ((BatchJobRepository) delegate).updateAll(jobs)
+                } else {
+                    for (TriggeredScheduledJob job : jobs) {
+                        delegate.update(job)
+                    }
+                }
+                break
+            case Op.DELETE:
+                delegate.delete(jobs)
+                break
+        }
+    }
+
+    private static enum Op {
+        INSERT, UPDATE, DELETE
+    }
+
+    private static final class Write {
+        Op op
+        TriggeredScheduledJob job
+        int count = 1
+        List<SettableFuture<Void>> waiters = []
+
+        void done(Throwable failure) {
+            waiters.each { failure ? it.setException(failure) : it.set(null) }
+        }
+    }
+
+}
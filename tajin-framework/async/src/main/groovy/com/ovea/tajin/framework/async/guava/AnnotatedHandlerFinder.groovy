@@ -81,6 +81,11 @@ class AnnotatedHandlerFinder implements HandlerFindingStrategy {
     }
 
     private static ImmutableList<Method> getAnnotatedMethodsInternal(Class<?> clazz) {
+        // classes compiled with tajin-async-index list their handlers in an index: no need to scan
+        List<Method> indexed = SubscriberIndex.handlerMethods(clazz);
+        if (indexed != null) {
+            return ImmutableList.copyOf(indexed);
+        }
         Set<? extends Class<?>> supers = TypeToken.of(clazz).getTypes().rawTypes();
         ImmutableList.Builder<Method> result = ImmutableList.builder();
         for (Method method : clazz.getMethods()) {
@@ -114,7 +119,9 @@ class AnnotatedHandlerFinder implements HandlerFindingStrategy {
      * Creates an {@code EventHandler} for subsequently calling {@code method} on
      * {@code listener}.
      * Selects an EventHandler implementation based on the annotations on
-     * {@code method}.
+     * {@code method}. The handler delivers events through a
+     * {@link HandlerInvoker}: a call generated for {@code method} on
+     * {@code listener} when the JVM can link one, or reflection otherwise.
      *
      * @param listener object bearing the event handler method.
      * @param method the event handler method to wrap in an EventHandler.
@@ -122,11 +129,13 @@ class AnnotatedHandlerFinder implements HandlerFindingStrategy {
      *         when invoked.
      */
     private static EventHandler makeHandler(Object listener, Method method) {
+        method.setAccessible(true);
+        HandlerInvoker invoker = HandlerInvoker.create(listener, method);
         EventHandler wrapper;
         if (methodIsDeclaredThreadSafe(method)) {
-            wrapper = new EventHandler(listener, method);
+            wrapper = new EventHandler(listener, method, invoker);
         } else {
-            wrapper = new SynchronizedEventHandler(listener, method);
+            wrapper = new SynchronizedEventHandler(listener, method, invoker);
         }
         return wrapper;
     }
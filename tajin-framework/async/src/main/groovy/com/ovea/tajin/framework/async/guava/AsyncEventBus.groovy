@@ -18,8 +18,12 @@ package com.ovea.tajin.framework.async.guava
 
 import com.google.common.annotations.Beta
 
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ConcurrentMap
 import java.util.concurrent.Executor
+import java.util.logging.Level
+import java.util.logging.Logger
 
 import static com.google.common.base.Preconditions.checkNotNull
 
@@ -32,8 +36,17 @@ import static com.google.common.base.Preconditions.checkNotNull
  */
 @Beta
 public class AsyncEventBus extends EventBus {
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventBus.class.getName());
+
     private final Executor executor;
 
+    /** sizing of the handler mailboxes, or null to submit each delivery to the executor */
+    private final MailboxPolicy mailboxPolicy;
+
+    /** per-handler mailboxes, created on first delivery */
+    private final ConcurrentMap<EventHandler, Mailbox> mailboxes =
+        new ConcurrentHashMap<EventHandler, Mailbox>();
+
     /** the queue of events is shared across all threads */
     private final ConcurrentLinkedQueue<EventWithHandler> eventsToDispatch =
         new ConcurrentLinkedQueue<EventWithHandler>();
@@ -48,8 +61,25 @@ public class AsyncEventBus extends EventBus {
      *        been posted to this event bus.
      */
     public AsyncEventBus(String identifier, Executor executor) {
+        this(identifier, executor, null);
+    }
+
+    /**
+     * Creates a new AsyncEventBus that will use {@code executor} to dispatch
+     * events through a bounded {@link Mailbox} per handler.  Assigns
+     * {@code identifier} as the bus's name for logging purposes.
+     *
+     * @param identifier short name for the bus, for logging purposes.
+     * @param executor Executor to use to dispatch events. It is the caller's
+     *        responsibility to shut down the executor after the last event has
+     *        been posted to this event bus.
+     * @param mailboxPolicy sizing and overflow behaviour of the mailboxes, or
+     *        {@code null} to submit each delivery directly to {@code executor}.
+     */
+    public AsyncEventBus(String identifier, Executor executor, MailboxPolicy mailboxPolicy) {
         super(identifier);
         this.executor = checkNotNull(executor);
+        this.mailboxPolicy = mailboxPolicy;
     }
 
     /**
@@ -62,6 +92,73 @@ public class AsyncEventBus extends EventBus {
      */
     public AsyncEventBus(Executor executor) {
         this.executor = checkNotNull(executor);
+        this.mailboxPolicy = null;
+    }
+
+    /**
+     * Posts {@code events} with a single executor submission (or mailbox
+     * schedule) per handler, each handler receiving its events in order.
+     */
+    @Override
+    public void postAll(Iterable<?> events) {
+        Map<EventHandler, List<Object>> batches = new LinkedHashMap<EventHandler, List<Object>>();
+        for (Object event : events) {
+            EventHandler[] handlers = handlersFor(event.getClass());
+            if (handlers.length == 0 && !(event instanceof DeadEvent)) {
+                post(new DeadEvent(this, event));
+            }
+            for (EventHandler handler : handlers) {
+                List<Object> batch = batches.get(handler);
+                if (batch == null) {
+                    batches.put(handler, batch = new ArrayList<Object>());
+                }
+                batch.add(event);
+            }
+        }
+        for (Map.Entry<EventHandler, List<Object>> entry : batches.entrySet()) {
+            dispatchBatch(entry.getValue(), entry.getKey());
+        }
+    }
+
+    /**
+     * Hands {@code events} over to {@code handler} at once: through its
+     * mailbox if mailboxes are enabled, otherwise in one executor task
+     * delivering them in order.
+     */
+    void dispatchBatch(final List<Object> events, final EventHandler handler) {
+        if (mailboxPolicy != null) {
+            mailboxFor(handler).offerAll(events);
+            return;
+        }
+        executor.execute(
+            new Runnable() {
+                @Override
+                public void run() {
+                    deliverAll(events, handler);
+                }
+            });
+    }
+
+    /**
+     * Delivers {@code events} in order to {@code handler}, logging failures
+     * so that one failing event does not prevent the next ones.
+     */
+    static void deliverAll(List<Object> events, EventHandler handler) {
+        for (Object event : events) {
+            try {
+                handler.handleEvent(event);
+            } catch (Throwable e) {
+                LOGGER.log(Level.SEVERE, "Could not dispatch event " + event + " to handler " + handler + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    void enqueueAndDispatch(Object event, EventHandler[] handlers) {
+        for (EventHandler handler : handlers) {
+            enqueueEvent(event, handler);
+        }
+        dispatchQueuedEvents();
     }
 
     @Override
@@ -87,12 +184,17 @@ public class AsyncEventBus extends EventBus {
     }
 
     /**
-     * Calls the {@link #executor} to dispatch {@code event} to {@code handler}.
+     * Calls the {@link #executor} to dispatch {@code event} to {@code handler},
+     * through the handler's mailbox if mailboxes are enabled.
      */
     @Override
     void dispatch(final Object event, final EventHandler handler) {
         checkNotNull(event);
         checkNotNull(handler);
+        if (mailboxPolicy != null) {
+            mailboxFor(handler).offer(event);
+            return;
+        }
         executor.execute(
             new Runnable() {
                 @Override
@@ -101,4 +203,30 @@ public class AsyncEventBus extends EventBus {
                 }
             });
     }
+
+    @Override
+    void handlersUnregistered(Collection<EventHandler> handlers) {
+        for (EventHandler handler : handlers) {
+            mailboxes.remove(handler);
+        }
+    }
+
+    /**
+     * Returns the current mailboxes, one per handler that received events.
+     */
+    Collection<Mailbox> getMailboxes() {
+        return Collections.unmodifiableCollection(mailboxes.values());
+    }
+
+    private Mailbox mailboxFor(EventHandler handler) {
+        Mailbox mailbox = mailboxes.get(handler);
+        if (mailbox == null) {
+            mailbox = new Mailbox(handler, executor, mailboxPolicy);
+            Mailbox previous = mailboxes.putIfAbsent(handler, mailbox);
+            if (previous != null) {
+                mailbox = previous;
+            }
+        }
+        return mailbox;
+    }
 }
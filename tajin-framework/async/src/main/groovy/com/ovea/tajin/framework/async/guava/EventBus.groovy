@@ -23,14 +23,19 @@ import com.google.common.cache.CacheBuilder
 import com.google.common.cache.CacheLoader
 import com.google.common.cache.LoadingCache
 import com.google.common.collect.HashMultimap
+import com.google.common.collect.ImmutableSetMultimap
 import com.google.common.collect.Multimap
 import com.google.common.collect.SetMultimap
 import com.google.common.reflect.TypeToken
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.ListenableFuture
 import com.google.common.util.concurrent.UncheckedExecutionException
 
 import java.util.Map.Entry
-import java.util.concurrent.locks.ReadWriteLock
-import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.locks.Lock
+import java.util.concurrent.locks.ReentrantLock
 import java.util.logging.Logger
 
 import static com.google.common.base.Preconditions.checkNotNull
@@ -121,15 +126,26 @@ public class EventBus {
             }
         });
 
+    /** shared empty result for event classes without any handler */
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
     /**
      * All registered event handlers, indexed by event type.
      *
-     * <p>This SetMultimap is NOT safe for concurrent use; all access should be
-     * made after acquiring a read or write lock via {@link #handlersByTypeLock}.
+     * <p>This SetMultimap is NOT safe for concurrent use; it is only read and
+     * written by {@link #register(Object)} and {@link #unregister(Object)}
+     * after acquiring {@link #handlersByTypeLock}. Posting never reads it and
+     * uses the immutable {@link #handlerIndex} snapshot instead.
      */
     private final SetMultimap<Class<?>, EventHandler> handlersByType =
         HashMultimap.create();
-    private final ReadWriteLock handlersByTypeLock = new ReentrantReadWriteLock();
+    private final Lock handlersByTypeLock = new ReentrantLock();
+
+    /**
+     * Immutable snapshot of {@link #handlersByType}, rebuilt and swapped on each
+     * registration change so that {@link #post(Object)} never takes a lock.
+     */
+    private volatile HandlerIndex handlerIndex = new HandlerIndex(handlersByType);
 
     /**
      * Logger for event dispatch failures.  Named by the fully-qualified name of
@@ -144,21 +160,15 @@ public class EventBus {
      */
     private final HandlerFindingStrategy finder = new AnnotatedHandlerFinder();
 
-    /** queues of events for the current thread to dispatch */
-    private final ThreadLocal<Queue<EventWithHandler>> eventsToDispatch =
-        new ThreadLocal<Queue<EventWithHandler>>() {
-            @Override
-            protected Queue<EventWithHandler> initialValue() {
-                return new LinkedList<EventWithHandler>();
-            }
-        };
-
-    /** true if the current thread is currently dispatching an event */
-    private final ThreadLocal<Boolean> isDispatching =
-        new ThreadLocal<Boolean>() {
+    /**
+     * Queue of events for the current thread to dispatch, kept from one post to
+     * the next so that posting does not allocate.
+     */
+    private final ThreadLocal<DispatchQueue> dispatchQueue =
+        new ThreadLocal<DispatchQueue>() {
             @Override
-            protected Boolean initialValue() {
-                return false;
+            protected DispatchQueue initialValue() {
+                return new DispatchQueue();
             }
         };
 
@@ -190,11 +200,12 @@ public class EventBus {
     public void register(Object object) {
         Multimap<Class<?>, EventHandler> methodsInListener =
             finder.findAllHandlers(object);
-        handlersByTypeLock.writeLock().lock();
+        handlersByTypeLock.lock();
         try {
             handlersByType.putAll(methodsInListener);
+            handlerIndex = new HandlerIndex(handlersByType);
         } finally {
-            handlersByTypeLock.writeLock().unlock();
+            handlersByTypeLock.unlock();
         }
     }
 
@@ -206,22 +217,34 @@ public class EventBus {
      */
     public void unregister(Object object) {
         Multimap<Class<?>, EventHandler> methodsInListener = finder.findAllHandlers(object);
-        for (Entry<Class<?>, Collection<EventHandler>> entry : methodsInListener.asMap().entrySet()) {
-            Class<?> eventType = entry.getKey();
-            Collection<EventHandler> eventMethodsInListener = entry.getValue();
-
-            handlersByTypeLock.writeLock().lock();
-            try {
+        handlersByTypeLock.lock();
+        try {
+            for (Entry<Class<?>, Collection<EventHandler>> entry : methodsInListener.asMap().entrySet()) {
+                Class<?> eventType = entry.getKey();
+                Collection<EventHandler> eventMethodsInListener = entry.getValue();
                 Set<EventHandler> currentHandlers = handlersByType.get(eventType);
                 if (!currentHandlers.containsAll(eventMethodsInListener)) {
                     throw new IllegalArgumentException(
                         "missing event handler for an annotated method. Is " + object + " registered?");
                 }
                 currentHandlers.removeAll(eventMethodsInListener);
-            } finally {
-                handlersByTypeLock.writeLock().unlock();
             }
+        } finally {
+            // also publish partial removals if an unregistered type was found
+            handlerIndex = new HandlerIndex(handlersByType);
+            handlersByTypeLock.unlock();
         }
+        handlersUnregistered(methodsInListener.values());
+    }
+
+    /**
+     * Called once {@code handlers} are not receiving new events anymore. This
+     * method is an appropriate override point for subclasses keeping state per
+     * handler.
+     *
+     * @param handlers handlers that have been unregistered.
+     */
+    void handlersUnregistered(Collection<EventHandler> handlers) {
     }
 
     /**
@@ -236,30 +259,78 @@ public class EventBus {
      * @param event event to post.
      */
     public void post(Object event) {
-        Set<Class<?>> dispatchTypes = flattenHierarchy(event.getClass());
-
-        boolean dispatched = false;
-        for (Class<?> eventType : dispatchTypes) {
-            handlersByTypeLock.readLock().lock();
-            try {
-                Set<EventHandler> wrappers = handlersByType.get(eventType);
-
-                if (!wrappers.isEmpty()) {
-                    dispatched = true;
-                    for (EventHandler wrapper : wrappers) {
-                        enqueueEvent(event, wrapper);
-                    }
-                }
-            } finally {
-                handlersByTypeLock.readLock().unlock();
-            }
-        }
+        EventHandler[] wrappers = handlersFor(event.getClass());
 
-        if (!dispatched && !(event instanceof DeadEvent)) {
+        if (wrappers.length == 0 && !(event instanceof DeadEvent)) {
             post(new DeadEvent(this, event));
         }
 
-        dispatchQueuedEvents();
+        enqueueAndDispatch(event, wrappers);
+    }
+
+    /**
+     * Posts an event to all registered handlers, like {@link #post(Object)}, and
+     * returns a future completed when every handler has handled it. The future
+     * fails with a {@link com.ovea.tajin.framework.async.BroadcastException} if
+     * any handler threw or could not be given the event; it never blocks the
+     * posting thread.
+     *
+     * @param event event to post.
+     * @return completion of the handlers, immediately successful if there is none.
+     */
+    public ListenableFuture<Void> postAsync(Object event) {
+        EventHandler[] wrappers = handlersFor(event.getClass());
+        if (wrappers.length == 0) {
+            post(event);
+            return Futures.immediateFuture(null);
+        }
+        TrackedEvent tracked = new TrackedEvent(event, wrappers.length);
+        try {
+            enqueueAndDispatch(tracked, wrappers);
+        } catch (Throwable e) {
+            tracked.abort(e);
+        }
+        return tracked.getFuture();
+    }
+
+    /**
+     * Posts several events to all registered handlers, in order. Asynchronous
+     * subclasses hand all the events of a handler over at once.
+     *
+     * @param events events to post.
+     */
+    public void postAll(Iterable<?> events) {
+        for (Object event : events) {
+            post(event);
+        }
+    }
+
+    /**
+     * Queues {@code event} for each of {@code handlers} and dispatches the
+     * queued events, with a single lookup of the current thread's queue.
+     */
+    void enqueueAndDispatch(Object event, EventHandler[] handlers) {
+        DispatchQueue queue = dispatchQueue.get();
+        queue.offer(event, handlers);
+        queue.drain(this);
+    }
+
+    /**
+     * Returns the handlers currently registered for {@code eventClass} or any
+     * of its supertypes, without locking.
+     *
+     * @param eventClass concrete class of a posted event.
+     * @return handlers to call, never null. The array must not be modified.
+     */
+    EventHandler[] handlersFor(Class<?> eventClass) {
+        return handlerIndex.handlersFor(eventClass);
+    }
+
+    /**
+     * Returns all the currently registered handlers, without locking.
+     */
+    Collection<EventHandler> getHandlers() {
+        return handlerIndex.handlersByType.values();
     }
 
     /**
@@ -268,7 +339,7 @@ public class EventBus {
      * so they can be dispatched in the same order.
      */
     void enqueueEvent(Object event, EventHandler handler) {
-        eventsToDispatch.get().offer(new EventWithHandler(event, handler));
+        dispatchQueue.get().offer(event, handler);
     }
 
     /**
@@ -277,23 +348,9 @@ public class EventBus {
      */
     void dispatchQueuedEvents() {
         // don't dispatch if we're already dispatching, that would allow reentrancy
-        // and out-of-order events. Instead, leave the events to be dispatched
-        // after the in-progress dispatch is complete.
-        if (isDispatching.get()) {
-            return;
-        }
-
-        isDispatching.set(true);
-        try {
-            Queue<EventWithHandler> events = eventsToDispatch.get();
-            EventWithHandler eventWithHandler;
-            while ((eventWithHandler = events.poll()) != null) {
-                dispatch(eventWithHandler.event, eventWithHandler.handler);
-            }
-        } finally {
-            isDispatching.remove();
-            eventsToDispatch.remove();
-        }
+        // and out-of-order events. Instead, the queue leaves the events to be
+        // dispatched after the in-progress dispatch is complete.
+        dispatchQueue.get().drain(this);
     }
 
     /**
@@ -317,7 +374,7 @@ public class EventBus {
      * @return {@code clazz}'s complete type hierarchy, flattened and uniqued.
      */
     @VisibleForTesting
-    Set<Class<?>> flattenHierarchy(Class<?> concreteClass) {
+    static Set<Class<?>> flattenHierarchy(Class<?> concreteClass) {
         try {
             return flattenHierarchyCache.getUnchecked(concreteClass);
         } catch (UncheckedExecutionException e) {
@@ -325,6 +382,45 @@ public class EventBus {
         }
     }
 
+    /**
+     * Immutable view of the registered handlers at a given point in time.
+     *
+     * <p>The handlers of every type in the hierarchy of a concrete event class
+     * are resolved once, on the first post of that class, and kept in an array
+     * so that subsequent posts only do a single map lookup. A new index is
+     * created each time a handler is registered or unregistered, which
+     * discards all the resolved arrays at once.
+     */
+    static final class HandlerIndex {
+        private final ImmutableSetMultimap<Class<?>, EventHandler> handlersByType;
+        private final ConcurrentMap<Class<?>, EventHandler[]> handlersByEventClass =
+            new ConcurrentHashMap<Class<?>, EventHandler[]>();
+
+        HandlerIndex(SetMultimap<Class<?>, EventHandler> handlersByType) {
+            this.handlersByType = ImmutableSetMultimap.copyOf(handlersByType);
+        }
+
+        /**
+         * Returns the handlers of all the types {@code concreteClass} is
+         * assignable to, in the order of its flattened hierarchy.
+         */
+        EventHandler[] handlersFor(Class<?> concreteClass) {
+            EventHandler[] handlers = handlersByEventClass.get(concreteClass);
+            if (handlers == null) {
+                List<EventHandler> found = new ArrayList<EventHandler>();
+                for (Class<?> eventType : flattenHierarchy(concreteClass)) {
+                    found.addAll(handlersByType.get(eventType));
+                }
+                handlers = found.isEmpty() ? NO_HANDLERS : found.toArray(new EventHandler[found.size()]);
+                EventHandler[] previous = handlersByEventClass.putIfAbsent(concreteClass, handlers);
+                if (previous != null) {
+                    handlers = previous;
+                }
+            }
+            return handlers;
+        }
+    }
+
     /** simple struct representing an event and it's handler */
     static class EventWithHandler {
         final Object event;
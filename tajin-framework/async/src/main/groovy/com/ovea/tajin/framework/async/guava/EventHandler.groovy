@@ -17,9 +17,11 @@
 package com.ovea.tajin.framework.async.guava
 
 import com.google.common.base.Preconditions
+import com.ovea.tajin.framework.async.LatencyHistogram
 
-import java.lang.reflect.InvocationTargetException
 import java.lang.reflect.Method
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 
 import static com.google.common.base.Preconditions.checkNotNull
 
@@ -41,6 +43,12 @@ class EventHandler {
     private final Object target;
     /** Handler method. */
     private final Method method;
+    /** Invoker bound to the handler method and its target. */
+    private final HandlerInvoker invoker;
+    /** Duration of each call, in microseconds. */
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /** Number of calls that threw. */
+    private final AtomicLong failures = new AtomicLong();
 
     /**
      * Creates a new EventHandler to wrap {@code method} on @{code target}.
@@ -49,6 +57,19 @@ class EventHandler {
      * @param method handler method.
      */
     EventHandler(Object target, Method method) {
+        this(target, method, null);
+    }
+
+    /**
+     * Creates a new EventHandler to wrap {@code method} on @{code target},
+     * delivering events through {@code invoker}.
+     *
+     * @param target object to which the method applies.
+     * @param method handler method.
+     * @param invoker invoker calling {@code method} on {@code target}, or
+     *        {@code null} to build the default one.
+     */
+    EventHandler(Object target, Method method, HandlerInvoker invoker) {
         Preconditions.checkNotNull(target,
             "EventHandler target cannot be null.");
         Preconditions.checkNotNull(method, "EventHandler method cannot be null.");
@@ -56,25 +77,67 @@ class EventHandler {
         this.target = target;
         this.method = method;
         method.setAccessible(true);
+        this.invoker = invoker != null ? invoker : HandlerInvoker.create(target, method);
     }
 
     /**
-     * Invokes the wrapped handler method to handle {@code event}.
+     * Invokes the wrapped handler method to handle {@code event}, reporting
+     * the outcome if {@code event} is a {@link TrackedEvent}.
      *
      * @param event event to handle
-     * @throws InvocationTargetException  if the wrapped method throws any
-     * {@link Throwable} that is not an {@link Error} ({@code Error} instances are
-     *     propagated as-is).
+     * @throws Throwable any exception thrown by the wrapped method, as-is.
      */
-    public void handleEvent(Object event) throws InvocationTargetException {
+    public void handleEvent(Object event) throws Throwable {
         checkNotNull(event);
+        if (event instanceof TrackedEvent) {
+            TrackedEvent tracked = (TrackedEvent) event;
+            try {
+                invoke(tracked.event);
+            } catch (Throwable e) {
+                tracked.failed(e);
+                throw e;
+            }
+            tracked.handled();
+        } else {
+            invoke(event);
+        }
+    }
+
+    private void invoke(Object event) throws Throwable {
+        long start = System.nanoTime();
         try {
-            method.invoke(target, [event] as Object[]);
-        } catch (InvocationTargetException e) {
-            throw e.targetException
+            invoker.invoke(event);
+        } catch (Throwable e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
         }
     }
 
+    /**
+     * @return durations of the calls to the handler method, in microseconds.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return number of calls to the handler method that threw.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Whether the handler method can be called from several threads at the same
+     * time, as indicated by the
+     * {@link com.google.common.eventbus.AllowConcurrentEvents} annotation.
+     */
+    public boolean allowsConcurrentEvents() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "[wrapper " + method + "]";
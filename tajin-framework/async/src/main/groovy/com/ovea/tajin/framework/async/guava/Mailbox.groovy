@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Bounded queue of events waiting to be delivered to a single {@link EventHandler}.
+ *
+ * <p>A mailbox submits drain tasks to the executor only while it holds events, and
+ * never more than its allowed concurrency: one for handlers that are not thread-safe,
+ * {@link MailboxPolicy#concurrency} for handlers annotated with
+ * {@link com.google.common.eventbus.AllowConcurrentEvents}. Posting an event thus never
+ * runs subscriber code in the posting thread, unless the mailbox is full and its
+ * overflow policy is {@link MailboxPolicy.Overflow#CALLER_RUNS}.
+ *
+ * @date 2026-10-18
+ */
+class Mailbox implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(Mailbox.name)
+
+    /** max number of events delivered by a drain task before it yields its thread */
+    private static final int BATCH_SIZE = 64
+
+    final EventHandler handler
+
+    private final Executor executor
+    private final MailboxPolicy policy
+    private final BlockingQueue<Object> events
+    private final int maxDrainers
+    private final AtomicInteger drainers = new AtomicInteger()
+    private final AtomicLong delivered = new AtomicLong()
+    private final AtomicLong dropped = new AtomicLong()
+    private final AtomicLong callerRuns = new AtomicLong()
+
+    Mailbox(EventHandler handler, Executor executor, MailboxPolicy policy) {
+        this.handler = handler
+        this.executor = executor
+        this.policy = policy
+        this.events = new ArrayBlockingQueue<Object>(policy.capacity)
+        this.maxDrainers = handler.allowsConcurrentEvents() ? policy.concurrency : 1
+    }
+
+    /**
+     * Queues {@code event} for delivery, applying the overflow policy if the mailbox is full.
+     */
+    void offer(Object event) {
+        if (!events.offer(event)) {
+            switch (policy.overflow) {
+                case MailboxPolicy.Overflow.BLOCK:
+                    if (!events.offer(event, policy.blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        drop(event)
+                    }
+                    break
+                case MailboxPolicy.Overflow.DROP_OLDEST:
+                    while (!events.offer(event)) {
+                        Object oldest = events.poll()
+                        if (oldest != null) {
+                            drop(oldest)
+                        }
+                    }
+                    break
+                case MailboxPolicy.Overflow.DROP_NEWEST:
+                    drop(event)
+                    break
+                case MailboxPolicy.Overflow.CALLER_RUNS:
+                    callerRuns.incrementAndGet()
+                    deliver(event)
+                    break
+            }
+        }
+        schedule()
+    }
+
+    /**
+     * Queues {@code events} in order, scheduling drainers once for the whole batch.
+     */
+    void offerAll(List<Object> events) {
+        for (Object event : events) {
+            if (!this.events.offer(event)) {
+                // full: let the overflow policy handle it, this also schedules the drainers
+                offer(event)
+            }
+        }
+        schedule()
+    }
+
+    @Override
+    void run() {
+        try {
+            Object event
+            int n = 0
+            while (n++ < BATCH_SIZE && (event = events.poll()) != null) {
+                deliver(event)
+            }
+        } finally {
+            drainers.decrementAndGet()
+        }
+        // events may have been offered while this drainer was finishing
+        schedule()
+    }
+
+    private void schedule() {
+        while (true) {
+            int n = drainers.get()
+            if (n >= maxDrainers || events.isEmpty()) {
+                return
+            }
+            if (drainers.compareAndSet(n, n + 1)) {
+                try {
+                    executor.execute(this)
+                } catch (RejectedExecutionException e) {
+                    drainers.decrementAndGet()
+                    throw e
+                }
+                return
+            }
+        }
+    }
+
+    private void deliver(Object event) {
+        try {
+            handler.handleEvent(event)
+            delivered.incrementAndGet()
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Could not dispatch event " + event + " to handler " + handler + ": " + e.message, e)
+        }
+    }
+
+    private void drop(Object event) {
+        dropped.incrementAndGet()
+        if (event instanceof TrackedEvent) {
+            ((TrackedEvent) event).failed(new RejectedExecutionException("Mailbox full: event dropped for handler " + handler))
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Mailbox full, dropping event " + event + " for handler " + handler)
+        }
+    }
+
+    /** number of events waiting in this mailbox */
+    int getDepth() { events.size() }
+
+    long getDeliveredCount() { delivered.get() }
+
+    long getDroppedCount() { dropped.get() }
+
+    long getCallerRunsCount() { callerRuns.get() }
+
+}
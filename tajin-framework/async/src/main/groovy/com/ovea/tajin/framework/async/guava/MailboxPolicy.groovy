@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava
+
+import groovy.transform.ToString
+
+/**
+ * Sizing and overflow behaviour of the per-handler {@link Mailbox mailboxes} of an {@link AsyncEventBus}.
+ * <p>
+ * Mailboxes are opt-in: an {@link AsyncEventBus} created without a policy submits each delivery to its executor.
+ *
+ * @date 2026-10-18
+ */
+@ToString(includeNames = true)
+class MailboxPolicy {
+
+    static enum Overflow {
+        /**
+         * Blocks the posting thread until room is available or {@link MailboxPolicy#blockTimeoutMillis}
+         * elapsed, in which case the event is dropped
+         */
+        BLOCK,
+        /**
+         * Removes the oldest queued event to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * Discards the posted event
+         */
+        DROP_NEWEST,
+        /**
+         * Delivers the event in the posting thread
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * Max number of events queued per handler
+     */
+    int capacity = 10000
+
+    /**
+     * What to do when a mailbox is full
+     */
+    Overflow overflow = Overflow.CALLER_RUNS
+
+    /**
+     * Max time a posting thread is blocked when overflow is {@link Overflow#BLOCK}
+     */
+    long blockTimeoutMillis = 1000
+
+    /**
+     * Max number of threads delivering events at the same time to a handler allowing concurrent events
+     */
+    int concurrency = Runtime.runtime.availableProcessors()
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava
+
+import com.google.common.base.Function
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.RejectedExecutionHandler
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Logger
+
+import static com.google.common.base.Preconditions.checkArgument
+import static com.google.common.base.Preconditions.checkNotNull
+
+/**
+ * An {@link AsyncEventBus} delivering keyed events on single-threaded lanes.
+ *
+ * <p>The key of each event is computed by a key function. Events with a key are
+ * hashed onto one of the lanes, so all the handler calls for a given key happen
+ * in posting order and never concurrently, while different keys are handled in
+ * parallel. Keyed events bypass the mailboxes. Events without a key are
+ * dispatched like in {@link AsyncEventBus}.
+ *
+ * @date 2026-10-18
+ */
+class PartitionedEventBus extends AsyncEventBus {
+
+    private static final Logger LOGGER = Logger.getLogger(PartitionedEventBus.name);
+
+    private final Executor[] lanes;
+    private final Function<Object, Object> keyFunction;
+
+    /**
+     * @param identifier short name for the bus, for logging purposes.
+     * @param executor Executor to use to dispatch events without key.
+     * @param mailboxPolicy sizing of the mailboxes used for events without key,
+     *        or {@code null} to submit them directly to {@code executor}.
+     * @param lanes single-threaded executors used to dispatch keyed events. It is
+     *        the caller's responsibility to shut them down.
+     * @param keyFunction returns the partition key of an event, or null.
+     */
+    PartitionedEventBus(String identifier, Executor executor, MailboxPolicy mailboxPolicy, Executor[] lanes, Function<Object, Object> keyFunction) {
+        super(identifier, executor, mailboxPolicy);
+        checkArgument(lanes.length > 0, "At least one lane is required");
+        this.lanes = lanes;
+        this.keyFunction = checkNotNull(keyFunction);
+    }
+
+    /**
+     * Creates a lane: a single-threaded executor queuing at most {@code policy.capacity} tasks, applying
+     * {@code policy.overflow} when it is full. A lane task holds the events of one dispatch, and is dropped as a
+     * whole. {@link MailboxPolicy.Overflow#CALLER_RUNS} is refused: running a task in the posting thread would
+     * deliver events of a partition concurrently with the lane thread.
+     *
+     * @param threadFactory factory of the lane thread.
+     * @param policy sizing and overflow behaviour of the lane queue.
+     */
+    static ExecutorService newLane(ThreadFactory threadFactory, MailboxPolicy policy) {
+        checkArgument(policy.capacity > 0, "Lane capacity must be greater than 0");
+        checkArgument(policy.overflow != MailboxPolicy.Overflow.CALLER_RUNS, "Lanes cannot run tasks in the posting thread");
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(policy.capacity), threadFactory, new LaneOverflow(policy));
+    }
+
+    /**
+     * @return the number of keyed events dropped because their lane was full
+     */
+    long getLaneDroppedCount() {
+        long dropped = 0;
+        for (Executor lane : lanes) {
+            if (lane instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) lane).rejectedExecutionHandler instanceof LaneOverflow) {
+                dropped += ((LaneOverflow) ((ThreadPoolExecutor) lane).rejectedExecutionHandler).dropped.get();
+            }
+        }
+        return dropped;
+    }
+
+    @Override
+    void dispatch(final Object event, final EventHandler handler) {
+        Object key = keyOf(event);
+        if (key == null) {
+            super.dispatch(event, handler);
+            return;
+        }
+        laneFor(key).execute(new LaneTask(Collections.singletonList(event), handler));
+    }
+
+    /**
+     * Hands the keyed events over with one task per lane, and the others as in
+     * {@link AsyncEventBus}.
+     */
+    @Override
+    void dispatchBatch(List<Object> events, EventHandler handler) {
+        List<Object> unkeyed = new ArrayList<Object>();
+        Map<Executor, List<Object>> byLane = new LinkedHashMap<Executor, List<Object>>();
+        for (Object event : events) {
+            Object key = keyOf(event);
+            if (key == null) {
+                unkeyed.add(event);
+            } else {
+                Executor lane = laneFor(key);
+                List<Object> batch = byLane.get(lane);
+                if (batch == null) {
+                    byLane.put(lane, batch = new ArrayList<Object>());
+                }
+                batch.add(event);
+            }
+        }
+        if (!unkeyed.isEmpty()) {
+            super.dispatchBatch(unkeyed, handler);
+        }
+        for (Map.Entry<Executor, List<Object>> entry : byLane.entrySet()) {
+            entry.getKey().execute(new LaneTask(entry.getValue(), handler));
+        }
+    }
+
+    private Object keyOf(Object event) {
+        return keyFunction.apply(event instanceof TrackedEvent ? ((TrackedEvent) event).event : event);
+    }
+
+    private Executor laneFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return lanes[(h & 0x7fffffff) % lanes.length];
+    }
+
+    private static final class LaneTask implements Runnable {
+        private final List<Object> events;
+        private final EventHandler handler;
+
+        LaneTask(List<Object> events, EventHandler handler) {
+            this.events = events;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            // failures are logged to keep the lane thread: the next events of
+            // this partition must still be delivered in order
+            AsyncEventBus.deliverAll(events, handler);
+        }
+    }
+
+    private static final class LaneOverflow implements RejectedExecutionHandler {
+        private final MailboxPolicy policy;
+        private final AtomicLong dropped = new AtomicLong();
+
+        LaneOverflow(MailboxPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor lane) {
+            if (lane.isShutdown()) {
+                throw new RejectedExecutionException("Lane is shut down");
+            }
+            switch (policy.overflow) {
+                case MailboxPolicy.Overflow.BLOCK:
+                    try {
+                        if (!lane.queue.offer(task, policy.blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            drop(task);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        drop(task);
+                    }
+                    break;
+                case MailboxPolicy.Overflow.DROP_OLDEST:
+                    while (!lane.queue.offer(task)) {
+                        Runnable oldest = lane.queue.poll();
+                        if (oldest != null) {
+                            drop(oldest);
+                        }
+                    }
+                    break;
+                case MailboxPolicy.Overflow.DROP_NEWEST:
+                    drop(task);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported lane overflow: " + policy.overflow);
+            }
+        }
+
+        private void drop(Runnable task) {
+            LaneTask laneTask = (LaneTask) task;
+            dropped.addAndGet(laneTask.events.size());
+            for (Object event : laneTask.events) {
+                if (event instanceof TrackedEvent) {
+                    ((TrackedEvent) event).failed(new RejectedExecutionException("Lane full: event dropped for handler " + laneTask.handler));
+                }
+            }
+            // keyed events are expected in order: losing one must be visible
+            LOGGER.warning("Lane full (" + policy.overflow + "), dropping " + laneTask.events.size() + " keyed event(s) for handler " + laneTask.handler);
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava
+
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheLoader
+import com.google.common.cache.LoadingCache
+import com.google.common.eventbus.Subscribe
+
+import java.lang.reflect.Method
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Reads the <code>META-INF/tajin/subscribers.index</code> files generated at compile time by tajin-async-index.
+ *
+ * <p>For an indexed class, the handler methods are resolved by signature, which avoids scanning all the methods of
+ * the class and of its supertypes. Classes which are not indexed, or whose index entry is stale (a handler cannot be
+ * resolved anymore, or a <code>@Subscribe</code> method of the class or of one of its supertypes is missing), are
+ * reported as unknown so that callers fall back to reflection. Stale entries are logged as warnings.
+ *
+ * <p>Supertypes may come from other jars, compiled separately: their <code>@Subscribe</code> methods are checked
+ * against the entry of each indexed subclass. They are scanned once per type, JDK types excepted.
+ *
+ * @date 2026-10-18
+ */
+final class SubscriberIndex {
+
+    static final String LOCATION = 'META-INF/tajin/subscribers.index'
+
+    private static final Logger LOGGER = Logger.getLogger(SubscriberIndex.name)
+
+    /**
+     * Index entries visible from each class loader: class name to handler signatures
+     */
+    private static final LoadingCache<ClassLoader, Map<String, List<String>>> indexes = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<ClassLoader, Map<String, List<String>>>() {
+        @Override
+        Map<String, List<String>> load(ClassLoader loader) throws Exception {
+            Map<String, List<String>> entries = new HashMap<>()
+            loader.getResources(LOCATION).each { URL url ->
+                try {
+                    url.eachLine('UTF-8') { String line ->
+                        List<String> tokens = line.trim().tokenize(' ')
+                        if (tokens) {
+                            entries[tokens[0]] = tokens.tail()
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to read subscriber index ${url}: ${e.message}", e)
+                }
+            }
+            return entries
+        }
+    })
+
+    /**
+     * Signatures of the <code>@Subscribe</code> methods declared by each type of the indexed hierarchies
+     */
+    private static final LoadingCache<Class<?>, Set<String>> declared = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<Class<?>, Set<String>>() {
+        @Override
+        Set<String> load(Class<?> type) throws Exception {
+            Set<String> signatures = new HashSet<>()
+            for (Method method : type.declaredMethods) {
+                if (method.isAnnotationPresent(Subscribe) && method.parameterTypes.length == 1) {
+                    signatures << "${method.name}(${method.parameterTypes[0].name})".toString()
+                }
+            }
+            return signatures
+        }
+    })
+
+    /**
+     * Classes whose stale entry has been reported
+     */
+    private static final Set<String> warned = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
+
+    private SubscriberIndex() {}
+
+    /**
+     * @return whether the class has handler methods, or null if it is not indexed or if its entry is stale
+     */
+    static Boolean hasHandlers(Class<?> clazz) {
+        List<String> signatures = signatures(clazz)
+        return signatures == null ? null : !signatures.empty
+    }
+
+    /**
+     * @return the handler methods of the class, or null if it is not indexed or if its entry is stale
+     */
+    static List<Method> handlerMethods(Class<?> clazz) {
+        List<String> signatures = signatures(clazz)
+        if (signatures == null) {
+            return null
+        }
+        List<Method> methods = new ArrayList<>(signatures.size())
+        for (String signature : signatures) {
+            int p = signature.indexOf('(')
+            try {
+                Class<?> eventType = Class.forName(signature.substring(p + 1, signature.length() - 1), false, clazz.classLoader)
+                methods << clazz.getMethod(signature.substring(0, p), eventType)
+            } catch (ClassNotFoundException | NoSuchMethodException | IndexOutOfBoundsException e) {
+                stale(clazz, "${signature} not found")
+                return null
+            }
+        }
+        return methods
+    }
+
+    /**
+     * @return the indexed signatures of the class, or null if it is not indexed or if a <code>@Subscribe</code> method
+     * of the class or of one of its supertypes is missing from its entry, i.e. the class was compiled again without
+     * tajin-async-index, or a supertype compiled separately gained a handler
+     */
+    private static List<String> signatures(Class<?> clazz) {
+        ClassLoader loader = clazz.classLoader
+        List<String> signatures = loader == null ? null : indexes.getUnchecked(loader).get(clazz.name)
+        if (signatures != null) {
+            for (Class<?> type : supertypes(clazz, new LinkedHashSet<Class<?>>())) {
+                for (String signature : declared.getUnchecked(type)) {
+                    if (!signatures.contains(signature)) {
+                        stale(clazz, "${signature} of ${type.name} missing")
+                        return null
+                    }
+                }
+            }
+        }
+        return signatures
+    }
+
+    /**
+     * @return the class and its supertypes, JDK types excepted: they have no <code>@Subscribe</code> method
+     */
+    private static Set<Class<?>> supertypes(Class<?> type, Set<Class<?>> found) {
+        if (type != null && type.classLoader != null && found.add(type)) {
+            supertypes(type.superclass, found)
+            for (Class<?> i : type.interfaces) {
+                supertypes(i, found)
+            }
+        }
+        return found
+    }
+
+    private static void stale(Class<?> clazz, String reason) {
+        if (warned.add(clazz.name)) {
+            LOGGER.warning("Stale subscriber index entry for ${clazz.name} (${reason}): scanning its methods instead. Rebuild it with tajin-async-index.")
+        }
+    }
+
+}
@@ -16,7 +16,6 @@
 
 package com.ovea.tajin.framework.async.guava
 
-import java.lang.reflect.InvocationTargetException
 import java.lang.reflect.Method
 
 /**
@@ -40,8 +39,25 @@ class SynchronizedEventHandler extends EventHandler {
         super(target, method);
     }
 
+    /**
+     * Creates a new SynchronizedEventHandler to wrap {@code method} on
+     * {@code target}, delivering events through {@code invoker}.
+     *
+     * @param target object to which the method applies.
+     * @param method handler method.
+     * @param invoker invoker calling {@code method} on {@code target}.
+     */
+    SynchronizedEventHandler(Object target, Method method, HandlerInvoker invoker) {
+        super(target, method, invoker);
+    }
+
+    @Override
+    public boolean allowsConcurrentEvents() {
+        return false;
+    }
+
     @Override
-    public synchronized void handleEvent(Object event) throws InvocationTargetException {
+    public synchronized void handleEvent(Object event) throws Throwable {
         super.handleEvent(event);
     }
 
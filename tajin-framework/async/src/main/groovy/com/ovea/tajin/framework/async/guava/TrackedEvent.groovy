@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava
+
+import com.google.common.util.concurrent.ListenableFuture
+import com.google.common.util.concurrent.SettableFuture
+import com.ovea.tajin.framework.async.BroadcastException
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Envelope of an event posted with {@link EventBus#postAsync(Object)}, dispatched
+ * in place of the event to each of its handlers.
+ *
+ * <p>{@link EventHandler#handleEvent(Object)} unwraps it and reports the outcome of
+ * each call. The future completes once every handler has reported, successfully
+ * if none failed and otherwise with a {@link BroadcastException} aggregating the
+ * failures.
+ *
+ * @date 2026-10-18
+ */
+final class TrackedEvent {
+
+    final Object event;
+
+    private final AtomicInteger pending;
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+    private final SettableFuture<Void> future = SettableFuture.create();
+
+    TrackedEvent(Object event, int handlers) {
+        this.event = event;
+        this.pending = new AtomicInteger(handlers);
+    }
+
+    ListenableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /** Reports that a handler has handled the event. */
+    void handled() {
+        if (pending.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    /** Reports that a handler has failed, or that the event could not be delivered to it. */
+    void failed(Throwable failure) {
+        failures.add(failure);
+        handled();
+    }
+
+    /**
+     * Completes the future without waiting for the handlers not reported yet,
+     * because posting failed with {@code failure}.
+     */
+    void abort(Throwable failure) {
+        if (!failures.contains(failure)) {
+            failures.add(failure);
+        }
+        complete();
+    }
+
+    private void complete() {
+        if (failures.isEmpty()) {
+            future.set(null);
+        } else {
+            future.setException(new BroadcastException(event, new ArrayList<Throwable>(failures)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(event);
+    }
+
+}
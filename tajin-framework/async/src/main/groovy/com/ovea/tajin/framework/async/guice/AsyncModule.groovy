@@ -30,16 +30,21 @@ import com.ovea.tajin.framework.async.AsyncExecutor
 import com.ovea.tajin.framework.async.ConfiguredEventBus
 import com.ovea.tajin.framework.async.DefaultJobScheduler
 import com.ovea.tajin.framework.async.Dispatcher
+import com.ovea.tajin.framework.async.ExecutorType
 import com.ovea.tajin.framework.async.JobListener
 import com.ovea.tajin.framework.async.JobRepository
 import com.ovea.tajin.framework.async.JobScheduler
+import com.ovea.tajin.framework.async.VirtualThreadExecutor
+import com.ovea.tajin.framework.async.guava.SubscriberIndex
 import com.ovea.tajin.framework.core.Settings
 
 import javax.annotation.PreDestroy
 import javax.inject.Inject
 import javax.inject.Provider
+import java.util.concurrent.BlockingQueue
 import java.util.concurrent.Executor
 import java.util.concurrent.ExecutorService
+import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.RejectedExecutionHandler
 import java.util.concurrent.SynchronousQueue
 import java.util.concurrent.ThreadPoolExecutor
@@ -69,7 +74,8 @@ class AsyncModule extends AbstractModule {
         bindListener(Matchers.any(), new TypeListener() {
             @Override
             public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
-                if (type.rawType.getMethods().find { it.isAnnotationPresent(Subscribe) }) {
+                Boolean indexed = SubscriberIndex.hasHandlers(type.rawType)
+                if (indexed != null ? indexed : type.rawType.getMethods().find { it.isAnnotationPresent(Subscribe) }) {
                     Provider<Injector> i = encounter.getProvider(Injector)
                     Provider<ConfiguredEventBus> e = encounter.getProvider(ConfiguredEventBus)
                     Provider<Settings> s = encounter.getProvider(Settings)
@@ -100,12 +106,25 @@ class AsyncModule extends AbstractModule {
             boolean enabled = settings.getBoolean('tajin.async.dispatcher.enabled', true)
             int min = settings.getInt('tajin.async.dispatcher.minPoolSize', 0)
             int max = settings.getInt('tajin.async.dispatcher.maxPoolSize', 10 * Runtime.runtime.availableProcessors())
+            if (enabled && max > 0 && ExecutorType.from(settings) == ExecutorType.VIRTUAL) {
+                // maxPoolSize becomes the max number of concurrent deliveries
+                executorService = VirtualThreadExecutor.create("${Dispatcher.simpleName}-vthread-", max)
+                if (executorService) {
+                    return executorService
+                }
+                LOGGER.warning("Virtual threads are not supported by this JVM: using a thread pool for ${Dispatcher.simpleName}")
+            }
             if (enabled && max - min > 0) {
-                return executorService = new ThreadPoolExecutor(
-                    min,
+                // mailboxes are opt-in. With them, the executor only receives drain tasks, bounded by the number of
+                // handlers: queue them instead of running them in the posting thread. Without them, keep a pool
+                // growing from min to max threads and running the deliveries in the posting thread when full.
+                boolean mailboxes = ConfiguredEventBus.mailboxPolicy(settings) != null
+                BlockingQueue<Runnable> queue = mailboxes ? new LinkedBlockingQueue<Runnable>() : new SynchronousQueue<Runnable>()
+                executorService = new ThreadPoolExecutor(
+                    mailboxes ? max : min,
                     max,
                     1L, TimeUnit.MINUTES,
-                    new SynchronousQueue<Runnable>(),
+                    queue,
                     new ThreadFactoryBuilder()
                         .setDaemon(false)
                         .setNameFormat("${Dispatcher.simpleName}-thread-%d")
@@ -123,6 +142,10 @@ class AsyncModule extends AbstractModule {
                         }
                     }
                 )
+                if (mailboxes) {
+                    ((ThreadPoolExecutor) executorService).allowCoreThreadTimeOut(true)
+                }
+                return executorService
             } else {
                 return new Executor() {
                     @Override
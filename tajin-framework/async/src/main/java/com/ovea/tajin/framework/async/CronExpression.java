@@ -0,0 +1,272 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cron expression: {@code [second] minute hour day-of-month month day-of-week}.
+ * <p>
+ * Each field accepts {@code *}, {@code ?}, values, ranges ({@code 1-5}), steps ({@code *}{@code /15}, {@code 10-30/5},
+ * {@code 5/10}) and lists of them ({@code 0,15,30}). Months and days of week also accept their english abbreviations
+ * ({@code JAN}, {@code MON}), Sunday being {@code 0} or {@code 7}. The second defaults to {@code 0} when only five
+ * fields are given. As in Unix cron, a day matches if both day fields match, or either one when both are restricted.
+ * <p>
+ * Fire times are wall-clock times of the given time zone. One skipped by a daylight saving gap fires later by the
+ * length of the gap, i.e. {@code 02:30} at {@code 03:30}, and one repeated when the clocks go back fires once, at
+ * its first occurrence.
+ * <p>
+ * The fields are parsed once into bit masks, so that computing the next fire time only looks up the next set bit of
+ * each field. Parsed expressions are immutable and cached by {@link #parse(String)}.
+ *
+ * @date 2026-10-18
+ */
+public final class CronExpression {
+
+    private static final ConcurrentMap<String, CronExpression> CACHE = new ConcurrentHashMap<>();
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /** max number of years searched for a matching day, i.e. the next February 29th on a given day of week */
+    private static final int MAX_YEARS = 28;
+
+    private final String expression;
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    private CronExpression(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Invalid cron expression: " + expression + ". Expected 5 or 6 fields.");
+        }
+        int i = fields.length - 5;
+        this.expression = expression;
+        this.seconds = i == 0 ? 1L : parseField(expression, fields[0], 0, 59, null);
+        this.minutes = parseField(expression, fields[i], 0, 59, null);
+        this.hours = parseField(expression, fields[i + 1], 0, 23, null);
+        this.daysOfMonth = parseField(expression, fields[i + 2], 1, 31, null);
+        this.months = parseField(expression, fields[i + 3], 1, 12, MONTHS);
+        long dow = parseField(expression, fields[i + 4], 0, 7, DAYS);
+        // Sunday is both 0 and 7
+        this.daysOfWeek = (dow | dow >>> 7) & 0x7F;
+        this.anyDayOfMonth = isAny(fields[i + 2]);
+        this.anyDayOfWeek = isAny(fields[i + 4]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public static CronExpression parse(String expression) {
+        CronExpression cron = CACHE.get(expression);
+        if (cron == null) {
+            cron = new CronExpression(expression);
+            CronExpression previous = CACHE.putIfAbsent(expression, cron);
+            if (previous != null) {
+                cron = previous;
+            }
+        }
+        return cron;
+    }
+
+    /**
+     * @return the first time strictly after {@code time} matching this expression in the given time zone, in epoch
+     * milliseconds, or -1 if there is none (i.e. {@code 0 0 30 2 *})
+     */
+    public long nextFireTime(long time, TimeZone zone) {
+        // searches the wall-clock time in UTC, where no hour is skipped or repeated, then resolves it in the zone
+        Calendar c = Calendar.getInstance(UTC, Locale.ROOT);
+        c.setTimeInMillis(time + zone.getOffset(time));
+        c.set(Calendar.MILLISECOND, 0);
+        c.add(Calendar.SECOND, 1);
+        int maxYear = c.get(Calendar.YEAR) + MAX_YEARS;
+        while (c.get(Calendar.YEAR) <= maxYear) {
+            int month = c.get(Calendar.MONTH) + 1;
+            int next = nextBit(months, month);
+            if (next != month) {
+                if (next < 0) {
+                    c.add(Calendar.YEAR, 1);
+                    next = nextBit(months, 1);
+                }
+                c.set(Calendar.MONTH, next - 1);
+                c.set(Calendar.DAY_OF_MONTH, 1);
+                startOfDay(c);
+                continue;
+            }
+            if (!matchesDay(c)) {
+                c.add(Calendar.DAY_OF_MONTH, 1);
+                startOfDay(c);
+                continue;
+            }
+            int hour = c.get(Calendar.HOUR_OF_DAY);
+            next = nextBit(hours, hour);
+            if (next != hour) {
+                if (next < 0) {
+                    c.add(Calendar.DAY_OF_MONTH, 1);
+                    startOfDay(c);
+                } else {
+                    c.set(Calendar.HOUR_OF_DAY, next);
+                    c.set(Calendar.MINUTE, 0);
+                    c.set(Calendar.SECOND, 0);
+                }
+                continue;
+            }
+            int minute = c.get(Calendar.MINUTE);
+            next = nextBit(minutes, minute);
+            if (next != minute) {
+                if (next < 0) {
+                    c.add(Calendar.HOUR_OF_DAY, 1);
+                    c.set(Calendar.MINUTE, 0);
+                } else {
+                    c.set(Calendar.MINUTE, next);
+                }
+                c.set(Calendar.SECOND, 0);
+                continue;
+            }
+            int second = c.get(Calendar.SECOND);
+            next = nextBit(seconds, second);
+            if (next != second) {
+                if (next < 0) {
+                    c.add(Calendar.MINUTE, 1);
+                    c.set(Calendar.SECOND, 0);
+                } else {
+                    c.set(Calendar.SECOND, next);
+                }
+                continue;
+            }
+            return resolve(c.getTimeInMillis(), time, zone);
+        }
+        return -1;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(Calendar c) {
+        boolean dom = (daysOfMonth & 1L << c.get(Calendar.DAY_OF_MONTH)) != 0;
+        boolean dow = (daysOfWeek & 1L << c.get(Calendar.DAY_OF_WEEK) - 1) != 0;
+        return anyDayOfMonth || anyDayOfWeek ? dom && dow : dom || dow;
+    }
+
+    /**
+     * @return the first instant after {@code time} showing the wall-clock time {@code local} in {@code zone}, or the
+     * instant it would have with the offset before the gap if the clocks skip it
+     */
+    private static long resolve(long local, long time, TimeZone zone) {
+        // the offsets a day before and after cover a transition on that day
+        long before = local - zone.getOffset(local - DAY_MILLIS);
+        long after = local - zone.getOffset(local + DAY_MILLIS);
+        long first = Math.min(before, after);
+        long second = Math.max(before, after);
+        if (first > time && first + zone.getOffset(first) == local) {
+            return first;
+        }
+        if (second > time && second + zone.getOffset(second) == local) {
+            return second;
+        }
+        return before;
+    }
+
+    private static void startOfDay(Calendar c) {
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+    }
+
+    /**
+     * @return the lowest set bit of {@code mask} greater or equal to {@code from}, or -1
+     */
+    private static int nextBit(long mask, int from) {
+        long m = mask >>> from << from;
+        return m == 0 ? -1 : Long.numberOfTrailingZeros(m);
+    }
+
+    private static boolean isAny(String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private static long parseField(String expression, String field, int min, int max, String[] names) {
+        long mask = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(expression, part.substring(slash + 1), 1, max, null);
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if ("*".equals(part) || "?".equals(part)) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                if (dash > 0) {
+                    from = parseValue(expression, part.substring(0, dash), min, max, names);
+                    to = parseValue(expression, part.substring(dash + 1), min, max, names);
+                } else {
+                    from = parseValue(expression, part, min, max, names);
+                    to = slash >= 0 ? max : from;
+                }
+                if (from > to) {
+                    throw new IllegalArgumentException("Invalid cron expression: " + expression + ". Invalid range: " + part);
+                }
+            }
+            for (int v = from; v <= to; v += step) {
+                mask |= 1L << v;
+            }
+        }
+        return mask;
+    }
+
+    private static int parseValue(String expression, String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + (names == MONTHS ? 1 : 0);
+                }
+            }
+        }
+        int v;
+        try {
+            v = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron expression: " + expression + ". Invalid value: " + value);
+        }
+        if (v < min || v > max) {
+            throw new IllegalArgumentException("Invalid cron expression: " + expression + ". Value " + v + " not in [" + min + ", " + max + "]");
+        }
+        return v;
+    }
+
+}
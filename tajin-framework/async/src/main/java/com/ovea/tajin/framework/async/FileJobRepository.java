@@ -0,0 +1,744 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import com.ovea.tajin.framework.core.Settings;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Embedded {@link JobRepository} storing the pending jobs in an append-only, memory-mapped log file.
+ * <p>
+ * Each change appends a record to {@code jobs.log}: {@code length:int crc32:int type:byte payload}, the payload
+ * of a PUT being the job encoded by {@link JobRecords} and the one of a DELETE its id. Completed jobs are deleted:
+ * the log only keeps pending ones. An in-memory index maps each job id to its last PUT record.
+ * <p>
+ * The index is checkpointed in {@code jobs.idx}, protected by a CRC32, at compaction and on close. At startup, a
+ * valid checkpoint is loaded and only the records appended after it are replayed; otherwise the whole log is
+ * scanned sequentially. Replay stops at the first torn or corrupted record. {@link #listPendingJobs()} reads the
+ * live records in file order, {@link #listPendingJobs(String, int)} pages through them by id.
+ * <p>
+ * The dedup keys of the pending jobs are also indexed in memory: inserting a job whose
+ * {@link ScheduledJob#getDedupKey() dedupKey} is held by another pending job throws a {@link DuplicateJobException}.
+ * <p>
+ * A background task compacts the log when dead records use more space than live ones: live records are copied
+ * to a new file which atomically replaces the log.
+ * <p>
+ * Without {@code sync}, records reach the disk when the OS flushes the mapped pages: they survive a crash of the
+ * JVM but not of the machine. The mapping grows by at least 64MB at a time, and the log is limited to 2GB.
+ * <p>
+ * Settings, when used with injection:
+ * <ul>
+ * <li>{@code tajin.async.scheduler.repository.file.directory}: directory of the files, default {@code ./jobs}</li>
+ * <li>{@code tajin.async.scheduler.repository.file.sync}: force each change to the disk, default false</li>
+ * <li>{@code tajin.async.scheduler.repository.file.compactionInterval}: seconds between compaction checks, default 60, 0 to disable</li>
+ * </ul>
+ *
+ * @date 2026-10-18
+ */
+@javax.inject.Singleton
+public class FileJobRepository implements BatchJobRepository, PagedJobRepository {
+
+    private static final Logger LOGGER = Logger.getLogger(FileJobRepository.class.getName());
+
+    private static final int LOG_MAGIC = 0x544a4c31;
+    private static final int INDEX_MAGIC = 0x544a4931;
+    /** magic:int generation:long */
+    private static final int HEADER_SIZE = 12;
+    /** length:int crc:int, the length covering the type and the payload */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    /** the log grows by at least this size, so that it is rarely mapped again */
+    private static final long GROWTH_CHUNK = 1 << 26;
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+    private static final int SCRATCH_SIZE = 1 << 12;
+    /** a scratch buffer grown beyond this size by a large job is not kept */
+    private static final int MAX_SCRATCH_SIZE = 1 << 20;
+
+    @Inject
+    Settings settings;
+
+    private File directory;
+    private boolean sync;
+    private long compactionInterval = 60;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** offset of the last PUT record of each pending job, sorted by id for paging */
+    private NavigableMap<String, Integer> index = new TreeMap<String, Integer>();
+    /** id of the pending job holding each dedup key */
+    private Map<String, String> idByDedupKey = new HashMap<String, String>();
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private long generation;
+    private int position;
+    private long liveBytes;
+    private ScheduledExecutorService compactor;
+    private long compactions;
+    /** receives each encoded job before it is appended, guarded by the lock */
+    private ByteBuffer scratch = ByteBuffer.allocate(SCRATCH_SIZE);
+
+    /**
+     * Creates a repository configured by the injected {@link Settings}
+     */
+    public FileJobRepository() {
+    }
+
+    /**
+     * @param directory directory of the log and index files, created if needed
+     * @param sync      if true, each change is forced to the disk before returning
+     * @param compactionInterval seconds between compaction checks, 0 to disable background compaction
+     */
+    public FileJobRepository(File directory, boolean sync, long compactionInterval) {
+        this.directory = directory;
+        this.sync = sync;
+        this.compactionInterval = compactionInterval;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (directory == null) {
+            directory = settings.getFile("tajin.async.scheduler.repository.file.directory", new File("jobs"));
+            sync = settings.getBoolean("tajin.async.scheduler.repository.file.sync", false);
+            compactionInterval = settings.getLong("tajin.async.scheduler.repository.file.compactionInterval", 60);
+        }
+        lock.lock();
+        try {
+            open();
+        } finally {
+            lock.unlock();
+        }
+        if (compactionInterval > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, JobScheduler.class.getSimpleName() + "-compactor");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            compactor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compactIfNeeded();
+                    } catch (Throwable e) {
+                        LOGGER.log(Level.SEVERE, "Unable to compact " + logFile() + ": " + e.getMessage(), e);
+                    }
+                }
+            }, compactionInterval, compactionInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        lock.lock();
+        try {
+            if (file != null) {
+                buffer.force();
+                writeIndex();
+                file.close();
+                file = null;
+                unmap(buffer);
+                buffer = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void insert(TriggeredScheduledJob job) {
+        insertAll(Collections.singletonList(job));
+    }
+
+    @Override
+    public void insertAll(Collection<TriggeredScheduledJob> jobs) {
+        lock.lock();
+        try {
+            Map<String, String> inserted = new HashMap<String, String>();
+            for (TriggeredScheduledJob job : jobs) {
+                String dedupKey = job.getSource().getDedupKey();
+                if (dedupKey != null) {
+                    String owner = idByDedupKey.get(dedupKey);
+                    if (owner == null) {
+                        owner = inserted.get(dedupKey);
+                    }
+                    if (owner != null && !owner.equals(job.getId())) {
+                        throw new DuplicateJobException(dedupKey, owner);
+                    }
+                    inserted.put(dedupKey, job.getId());
+                }
+            }
+            updateAll(jobs);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(TriggeredScheduledJob job) {
+        updateAll(Collections.singletonList(job));
+    }
+
+    @Override
+    public void updateAll(Collection<TriggeredScheduledJob> jobs) {
+        lock.lock();
+        try {
+            for (TriggeredScheduledJob job : jobs) {
+                if (job.getCompletionDate() != null) {
+                    remove(job.getId());
+                } else {
+                    put(job);
+                }
+            }
+            flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Collection<TriggeredScheduledJob> jobs) {
+        lock.lock();
+        try {
+            for (TriggeredScheduledJob job : jobs) {
+                remove(job.getId());
+            }
+            flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<TriggeredScheduledJob> listPendingJobs() {
+        lock.lock();
+        try {
+            int[] offsets = new int[index.size()];
+            int i = 0;
+            for (Integer offset : index.values()) {
+                offsets[i++] = offset;
+            }
+            // file order: sequential reads
+            Arrays.sort(offsets);
+            List<TriggeredScheduledJob> jobs = new ArrayList<TriggeredScheduledJob>(offsets.length);
+            for (int offset : offsets) {
+                jobs.add(JobRecords.decode(payload(offset)));
+            }
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<TriggeredScheduledJob> listPendingJobs(String afterId, int limit) {
+        lock.lock();
+        try {
+            Collection<Integer> offsets = (afterId == null ? index : index.tailMap(afterId, false)).values();
+            List<TriggeredScheduledJob> jobs = new ArrayList<TriggeredScheduledJob>(Math.min(limit, offsets.size()));
+            for (Integer offset : offsets) {
+                if (jobs.size() >= limit) {
+                    break;
+                }
+                jobs.add(JobRecords.decode(payload(offset)));
+            }
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<TriggeredScheduledJob> load(Collection<String> ids) {
+        lock.lock();
+        try {
+            List<TriggeredScheduledJob> jobs = new ArrayList<TriggeredScheduledJob>(ids.size());
+            for (String id : ids) {
+                Integer offset = index.get(id);
+                if (offset != null) {
+                    jobs.add(JobRecords.decode(payload(offset)));
+                }
+            }
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of pending jobs stored
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return size of the log, in bytes
+     */
+    public long getLogSize() {
+        lock.lock();
+        try {
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompactionCount() {
+        lock.lock();
+        try {
+            return compactions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compacts the log if dead records use more space than live ones
+     *
+     * @return true if the log was compacted
+     */
+    public boolean compactIfNeeded() throws IOException {
+        lock.lock();
+        try {
+            long dead = position - HEADER_SIZE - liveBytes;
+            if (file == null || dead < MIN_COMPACTION_BYTES || dead < liveBytes) {
+                return false;
+            }
+            compact();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private File logFile() {
+        return new File(directory, "jobs.log");
+    }
+
+    private File indexFile() {
+        return new File(directory, "jobs.idx");
+    }
+
+    private void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        File log = logFile();
+        boolean created = !log.exists() || log.length() == 0;
+        file = new RandomAccessFile(log, "rw");
+        map(Math.max(INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE, file.length())));
+        if (created) {
+            generation = System.currentTimeMillis();
+            buffer.putInt(0, LOG_MAGIC);
+            buffer.putLong(4, generation);
+            position = HEADER_SIZE;
+            index = new TreeMap<String, Integer>();
+            idByDedupKey = new HashMap<String, String>();
+            liveBytes = 0;
+            return;
+        }
+        if (buffer.getInt(0) != LOG_MAGIC) {
+            throw new IOException("Not a job log: " + log);
+        }
+        generation = buffer.getLong(4);
+        position = HEADER_SIZE;
+        index = new TreeMap<String, Integer>();
+        idByDedupKey = new HashMap<String, String>();
+        liveBytes = 0;
+        if (readIndex()) {
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                indexDedupKey(entry.getKey(), entry.getValue());
+            }
+        } else {
+            LOGGER.info("Scanning " + log + " to rebuild the job index");
+        }
+        int checkpoint = position;
+        replay();
+        LOGGER.info("Loaded " + index.size() + " pending jobs from " + log + " (" + (position - checkpoint) + " bytes replayed)");
+    }
+
+    private void map(int capacity) throws IOException {
+        MappedByteBuffer previous = buffer;
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (previous != null) {
+            unmap(previous);
+        }
+    }
+
+    /**
+     * Releases a mapping now instead of when the buffer is garbage collected. The buffer must not be used anymore:
+     * it is only read under the lock, and the decoded jobs do not refer to it.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                invokeCleaner = null;
+            }
+            if (invokeCleaner != null) {
+                // Java 9+
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } else {
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object c = cleaner.invoke(buffer);
+                if (c != null) {
+                    c.getClass().getMethod("clean").invoke(c);
+                }
+            }
+        } catch (Throwable e) {
+            LOGGER.log(Level.FINE, "Unable to unmap the job log, left to the garbage collector: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the records following {@link #position}, up to the end of the log or the first invalid record.
+     */
+    private void replay() {
+        int capacity = buffer.capacity();
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE < capacity) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                return;
+            }
+            if (length < 0 || position + RECORD_HEADER_SIZE + (long) length > capacity || !checksumValid(crc, position, length)) {
+                LOGGER.warning("Discarding the invalid end of " + logFile() + " at offset " + position);
+                byte[] zeros = new byte[Math.min(capacity - position, 1 << 16)];
+                ByteBuffer tail = buffer.duplicate();
+                tail.position(position);
+                while (tail.hasRemaining()) {
+                    tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+                }
+                return;
+            }
+            byte type = buffer.get(position + RECORD_HEADER_SIZE);
+            if (type == PUT) {
+                indexPut(JobRecords.decodeJobId(payload(position)), position);
+            } else if (type == DELETE) {
+                indexRemove(JobRecords.decodeId(payload(position)));
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    private boolean checksumValid(CRC32 crc, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.get(bytes);
+        crc.reset();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue() == buffer.getInt(offset + 4);
+    }
+
+    /**
+     * @return the payload of the record at {@code offset}
+     */
+    private ByteBuffer payload(int offset) {
+        int length = buffer.getInt(offset);
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE + 1);
+        record.limit(offset + RECORD_HEADER_SIZE + length);
+        return record.slice();
+    }
+
+    private int recordSize(int offset) {
+        return RECORD_HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    private void put(TriggeredScheduledJob job) {
+        scratch.clear();
+        scratch = JobRecords.encode(job, scratch);
+        scratch.flip();
+        indexPut(job.getId(), append(PUT, scratch));
+        if (scratch.capacity() > MAX_SCRATCH_SIZE) {
+            scratch = ByteBuffer.allocate(SCRATCH_SIZE);
+        }
+    }
+
+    private void remove(String id) {
+        if (index.containsKey(id)) {
+            append(DELETE, ByteBuffer.wrap(JobRecords.encodeId(id)));
+            indexRemove(id);
+        }
+    }
+
+    private void indexPut(String id, int offset) {
+        Integer previous = index.put(id, offset);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+            unindexDedupKey(id, previous);
+        }
+        liveBytes += recordSize(offset);
+        indexDedupKey(id, offset);
+    }
+
+    private void indexRemove(String id) {
+        Integer previous = index.remove(id);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+            unindexDedupKey(id, previous);
+        }
+    }
+
+    private void indexDedupKey(String id, int offset) {
+        String dedupKey = JobRecords.decodeDedupKey(payload(offset));
+        if (dedupKey != null) {
+            idByDedupKey.put(dedupKey, id);
+        }
+    }
+
+    private void unindexDedupKey(String id, int offset) {
+        String dedupKey = JobRecords.decodeDedupKey(payload(offset));
+        if (dedupKey != null && id.equals(idByDedupKey.get(dedupKey))) {
+            idByDedupKey.remove(dedupKey);
+        }
+    }
+
+    /**
+     * Appends a record with the remaining bytes of {@code payload}, a heap buffer. The length is written last: a
+     * record is only valid once complete.
+     *
+     * @return offset of the record
+     */
+    private int append(byte type, ByteBuffer payload) {
+        if (file == null) {
+            throw new IllegalStateException("Repository closed: " + logFile());
+        }
+        int length = 1 + payload.remaining();
+        long end = (long) position + RECORD_HEADER_SIZE + length;
+        if (end >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Job log full: " + logFile());
+        }
+        if (end >= buffer.capacity()) {
+            try {
+                map((int) Math.min(Integer.MAX_VALUE, Math.max(2L * buffer.capacity(), (end / GROWTH_CHUNK + 1) * GROWTH_CHUNK)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to grow " + logFile() + ": " + e.getMessage(), e);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        int offset = position;
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + 4);
+        record.putInt((int) crc.getValue()).put(type).put(payload);
+        buffer.putInt(offset, length);
+        position = (int) end;
+        return offset;
+    }
+
+    private void flush() {
+        if (sync) {
+            buffer.force();
+        }
+    }
+
+    private void compact() throws IOException {
+        long started = System.nanoTime();
+        int before = position;
+        List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(index.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
+                return a.getValue().compareTo(b.getValue());
+            }
+        });
+        File tmp = new File(directory, "jobs.log.tmp");
+        NavigableMap<String, Integer> compacted = new TreeMap<String, Integer>();
+        int end = HEADER_SIZE;
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16));
+            out.writeInt(LOG_MAGIC);
+            out.writeLong(generation + 1);
+            byte[] bytes = new byte[4096];
+            for (Map.Entry<String, Integer> entry : entries) {
+                int offset = entry.getValue();
+                int size = recordSize(offset);
+                if (bytes.length < size) {
+                    bytes = new byte[Math.max(size, bytes.length * 2)];
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.position(offset);
+                record.get(bytes, 0, size);
+                out.write(bytes, 0, size);
+                compacted.put(entry.getKey(), end);
+                end += size;
+            }
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        // a mapped file cannot be replaced on Windows
+        int capacity = buffer.capacity();
+        file.close();
+        unmap(buffer);
+        buffer = null;
+        try {
+            Files.move(tmp.toPath(), logFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // keep on with the previous log
+            file = new RandomAccessFile(logFile(), "rw");
+            map(capacity);
+            throw e;
+        }
+        file = new RandomAccessFile(logFile(), "rw");
+        map(Math.max(INITIAL_CAPACITY, end + 1));
+        generation++;
+        index = compacted;
+        position = end;
+        liveBytes = end - HEADER_SIZE;
+        compactions++;
+        writeIndex();
+        LOGGER.info("Compacted " + logFile() + " from " + before + " to " + end + " bytes in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + "ms");
+    }
+
+    /**
+     * Checkpoints the index: {@code magic:int generation:long position:int liveBytes:long count:int
+     * (id:utf offset:int)* crc32:long}
+     */
+    private void writeIndex() throws IOException {
+        File tmp = new File(directory, "jobs.idx.tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fos, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(generation);
+            out.writeInt(position);
+            out.writeLong(liveBytes);
+            out.writeInt(index.size());
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        Files.move(tmp.toPath(), indexFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the index checkpoint if it is valid and belongs to the current log
+     *
+     * @return true if loaded: {@link #position} is then the end of the log at checkpoint time
+     */
+    private boolean readIndex() {
+        File f = indexFile();
+        if (!f.isFile()) {
+            return false;
+        }
+        try {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            try {
+                if (in.readInt() != INDEX_MAGIC || in.readLong() != generation) {
+                    return false;
+                }
+                int end = in.readInt();
+                long live = in.readLong();
+                int count = in.readInt();
+                if (end < HEADER_SIZE || end > buffer.capacity() || count < 0) {
+                    return false;
+                }
+                NavigableMap<String, Integer> loaded = new TreeMap<String, Integer>();
+                for (int i = 0; i < count; i++) {
+                    loaded.put(in.readUTF(), in.readInt());
+                }
+                long crc = checked.getChecksum().getValue();
+                if (in.readLong() != crc) {
+                    LOGGER.warning("Ignoring corrupted index " + f);
+                    return false;
+                }
+                index = loaded;
+                position = end;
+                liveBytes = live;
+                return true;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable index " + f + ": " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import com.ovea.tajin.framework.core.Settings;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link LeaseManager} storing the leases in a directory, shared by the threads of a JVM and by the JVMs having
+ * access to the directory.
+ * <p>
+ * Each lease is a file {@code <key>.lease} holding {@code token:long expiresAt:long owner:string}, and the last
+ * fencing token is kept in {@code fencing.token}. Operations are serialized by an exclusive lock on
+ * {@code leases.lock}, so the directory must be on a file system supporting file locks. Expiration uses the wall
+ * clock: the clocks of the nodes must be synchronized to well below the TTL.
+ * <p>
+ * Settings, when used with injection:
+ * <ul>
+ * <li>{@code tajin.async.scheduler.lease.file.directory}: directory of the files, default {@code ./leases}</li>
+ * </ul>
+ *
+ * @date 2026-10-18
+ */
+@javax.inject.Singleton
+public class FileLeaseManager implements LeaseManager {
+
+    private static final Logger LOGGER = Logger.getLogger(FileLeaseManager.class.getName());
+
+    private static final String SUFFIX = ".lease";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Inject
+    Settings settings;
+
+    private File directory;
+    private RandomAccessFile lockFile;
+    private RandomAccessFile tokenFile;
+
+    /**
+     * Creates a lease manager configured by the injected {@link Settings}
+     */
+    public FileLeaseManager() {
+    }
+
+    /**
+     * @param directory directory of the lease files, created if needed
+     */
+    public FileLeaseManager(File directory) {
+        this.directory = directory;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (directory == null) {
+            directory = settings.getFile("tajin.async.scheduler.lease.file.directory", new File("leases"));
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        lockFile = new RandomAccessFile(new File(directory, "leases.lock"), "rw");
+        tokenFile = new RandomAccessFile(new File(directory, "fencing.token"), "rw");
+        purgeExpired();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (lockFile != null) {
+            lockFile.close();
+            tokenFile.close();
+            lockFile = null;
+        }
+    }
+
+    @Override
+    public synchronized Lease tryAcquire(String key, String owner, long ttl, TimeUnit unit) {
+        FileLock lock = lock();
+        try {
+            long now = System.currentTimeMillis();
+            File file = fileOf(key);
+            Lease current = read(key, file);
+            // the owner of the lease extends it with renew: acquiring it again would fork the fencing token
+            if (current != null && current.getExpiresAt() > now) {
+                return null;
+            }
+            Lease lease = new Lease(key, owner, nextToken(), now + unit.toMillis(ttl));
+            write(file, lease);
+            return lease;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to acquire lease " + key + ": " + e.getMessage(), e);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public synchronized boolean renew(Lease lease, long ttl, TimeUnit unit) {
+        FileLock lock = lock();
+        try {
+            File file = fileOf(lease.getKey());
+            Lease current = read(lease.getKey(), file);
+            // an expired lease can still be renewed as long as no one else acquired it
+            if (current == null || current.getFencingToken() != lease.getFencingToken()) {
+                return false;
+            }
+            lease.setExpiresAt(System.currentTimeMillis() + unit.toMillis(ttl));
+            write(file, lease);
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to renew lease " + lease.getKey() + ": " + e.getMessage(), e);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public synchronized void release(Lease lease) {
+        FileLock lock = lock();
+        try {
+            File file = fileOf(lease.getKey());
+            Lease current = read(lease.getKey(), file);
+            if (current != null && current.getFencingToken() == lease.getFencingToken()) {
+                Files.deleteIfExists(file.toPath());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to release lease " + lease.getKey() + ": " + e.getMessage(), e);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Deletes the files of the expired leases, left by crashed owners
+     */
+    public synchronized void purgeExpired() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        FileLock lock = lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    Lease lease = read(null, file);
+                    if (lease == null || lease.getExpiresAt() <= now) {
+                        Files.deleteIfExists(file.toPath());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to purge expired leases: " + e.getMessage(), e);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    private FileLock lock() {
+        if (lockFile == null) {
+            throw new IllegalStateException("Lease manager closed");
+        }
+        try {
+            return lockFile.getChannel().lock();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to lock " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void unlock(FileLock lock) {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to release file lock: " + e.getMessage(), e);
+        }
+    }
+
+    private long nextToken() throws IOException {
+        long token = tokenFile.length() >= 8 ? readLong(tokenFile.getChannel(), 0) + 1 : 1;
+        ByteBuffer buffer = ByteBuffer.allocate(8).putLong(0, token);
+        FileChannel channel = tokenFile.getChannel();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+        return token;
+    }
+
+    private File fileOf(String key) {
+        try {
+            return new File(directory, URLEncoder.encode(key, "UTF-8") + SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the lease stored in {@code file}, or null if there is none or if it is torn
+     */
+    private static Lease read(String key, File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < 16) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long token = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        return new Lease(key, new String(bytes, 16, bytes.length - 16, UTF8), token, expiresAt);
+    }
+
+    private static void write(File file, Lease lease) throws IOException {
+        byte[] owner = lease.getOwner().getBytes(UTF8);
+        ByteBuffer buffer = ByteBuffer.allocate(16 + owner.length);
+        buffer.putLong(lease.getFencingToken()).putLong(lease.getExpiresAt()).put(owner);
+        Files.write(file.toPath(), buffer.array());
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated file");
+            }
+        }
+        return buffer.getLong(0);
+    }
+
+}
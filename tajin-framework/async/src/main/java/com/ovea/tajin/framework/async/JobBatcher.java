@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers the due jobs of a given name into batches for a {@link BatchJobListener}.
+ * <p>
+ * A batch is handed over as soon as it holds {@code maxSize} jobs, in the thread adding the last one, or
+ * {@code lingerMillis} after its first job, on the executor. Jobs are handled in the order they were added.
+ *
+ * @date 2026-10-18
+ */
+final class JobBatcher {
+
+    interface Handler {
+        void handle(List<Runnable> batch);
+    }
+
+    private final int maxSize;
+    private final long lingerMillis;
+    private final Executor executor;
+    private final JobTimer timer;
+    private final Handler handler;
+
+    private List<Runnable> pending = new ArrayList<Runnable>();
+    private boolean flushScheduled;
+
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            List<Runnable> batch;
+            synchronized (JobBatcher.this) {
+                flushScheduled = false;
+                batch = take();
+            }
+            if (!batch.isEmpty()) {
+                handler.handle(batch);
+            }
+        }
+    };
+
+    /**
+     * @param maxSize      max number of jobs per batch, 1 to disable batching
+     * @param lingerMillis max time a job waits for the next ones before its batch is handed over
+     * @param executor     executor handing over the batches which are not full
+     * @param timer        timer of the linger delays
+     * @param handler      handles the batches
+     */
+    JobBatcher(int maxSize, long lingerMillis, Executor executor, JobTimer timer, Handler handler) {
+        this.maxSize = maxSize;
+        this.lingerMillis = lingerMillis;
+        this.executor = executor;
+        this.timer = timer;
+        this.handler = handler;
+    }
+
+    boolean isEnabled() {
+        return maxSize > 1;
+    }
+
+    void add(Runnable job) {
+        List<Runnable> full = null;
+        boolean scheduleFlush = false;
+        synchronized (this) {
+            pending.add(job);
+            if (pending.size() >= maxSize) {
+                full = take();
+            } else if (!flushScheduled) {
+                flushScheduled = scheduleFlush = true;
+            }
+        }
+        if (full != null) {
+            handler.handle(full);
+        } else if (scheduleFlush) {
+            if (lingerMillis > 0) {
+                timer.schedule(flush, lingerMillis, TimeUnit.MILLISECONDS);
+            } else {
+                executor.execute(flush);
+            }
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private List<Runnable> take() {
+        List<Runnable> batch = pending;
+        pending = new ArrayList<Runnable>(Math.min(maxSize, 64));
+        return batch;
+    }
+
+}
@@ -0,0 +1,484 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact binary format of {@link ScheduledJob#getData()}: schema-less, but keeping the type of each value.
+ * <p>
+ * Each value is a tag byte followed by its payload: integers are zigzag varints, strings are a varint length
+ * followed by UTF-8 bytes, collections and maps a varint size followed by their elements. Within a payload, each
+ * distinct map key is written once and then referenced by its index, and decoded keys are interned so that the
+ * jobs in memory share them.
+ * <p>
+ * Supported values are null, booleans, numbers (including {@link BigDecimal} and {@link BigInteger}), characters,
+ * strings, dates, enums (decoded as their name), byte arrays, arrays, lists, sets and maps of them. Other
+ * {@link Serializable} values fall back to Java serialization.
+ * <p>
+ * {@link Encoder} writes straight into a {@link ByteBuffer}, growing it if needed, and {@link #decode(ByteBuffer)}
+ * reads straight from one, i.e. a slice of a memory-mapped file, so that repositories do not copy the payload.
+ *
+ * @date 2026-10-18
+ */
+public final class JobDataCodec {
+
+    static final byte NULL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte FLOAT = 6;
+    static final byte STRING = 7;
+    static final byte BYTES = 8;
+    static final byte LIST = 9;
+    static final byte MAP = 10;
+    static final byte DATE = 11;
+    static final byte BIG_DECIMAL = 12;
+    static final byte BIG_INTEGER = 13;
+    static final byte SHORT = 14;
+    static final byte BYTE = 15;
+    static final byte CHAR = 16;
+    static final byte SET = 17;
+    static final byte SERIALIZED = 18;
+    static final byte KEY = 19;
+    static final byte KEY_REF = 20;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** decoded map keys, shared by all the jobs */
+    private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<String, String>();
+    private static final int MAX_INTERNED_KEYS = 10000;
+
+    private JobDataCodec() {
+    }
+
+    /**
+     * @return the encoded map, in a new array of the exact size
+     */
+    public static byte[] encode(Map<?, ?> data) {
+        Encoder encoder = new Encoder(ByteBuffer.allocate(256));
+        encoder.writeValue(data);
+        ByteBuffer buffer = encoder.getBuffer();
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Decodes a map from the remaining bytes of {@code in}, advancing its position
+     *
+     * @throws BufferUnderflowException if the input is truncated
+     * @throws IllegalArgumentException if the input is not an encoded map
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<Object, Object> decode(ByteBuffer in) {
+        Object value = new Decoder(in).readValue();
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Not an encoded map: " + (value == null ? null : value.getClass().getName()));
+        }
+        return (Map<Object, Object>) value;
+    }
+
+    /**
+     * Writes values into a {@link ByteBuffer}, replacing it by a larger one when it is full. Map keys are
+     * referenced from their first occurrence in the values written by the same encoder.
+     */
+    public static final class Encoder {
+
+        private ByteBuffer out;
+        private Map<String, Integer> keys;
+
+        /**
+         * @param out buffer receiving the values from its position
+         */
+        public Encoder(ByteBuffer out) {
+            this.out = out;
+        }
+
+        /**
+         * @return the buffer holding the encoded values, up to its position: the given one, or a larger copy
+         */
+        public ByteBuffer getBuffer() {
+            return out;
+        }
+
+        public void writeValue(Object value) {
+            if (value == null) {
+                put(NULL);
+            } else if (value instanceof String) {
+                put(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                put(INT);
+                writeVarLong(zigzag((Integer) value));
+            } else if (value instanceof Long) {
+                put(LONG);
+                writeVarLong(zigzag((Long) value));
+            } else if (value instanceof Boolean) {
+                put((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                put(MAP);
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeKey(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                put(value instanceof Set ? SET : LIST);
+                writeVarLong(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Double) {
+                put(DOUBLE);
+                ensure(8);
+                out.putDouble((Double) value);
+            } else if (value instanceof Float) {
+                put(FLOAT);
+                ensure(4);
+                out.putFloat((Float) value);
+            } else if (value instanceof Date) {
+                put(DATE);
+                writeVarLong(zigzag(((Date) value).getTime()));
+            } else if (value instanceof CharSequence || value instanceof Enum) {
+                put(STRING);
+                writeString(value instanceof Enum ? ((Enum) value).name() : value.toString());
+            } else if (value instanceof byte[]) {
+                put(BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof BigDecimal) {
+                put(BIG_DECIMAL);
+                writeString(value.toString());
+            } else if (value instanceof BigInteger) {
+                put(BIG_INTEGER);
+                writeString(value.toString());
+            } else if (value instanceof Short) {
+                put(SHORT);
+                writeVarLong(zigzag((Short) value));
+            } else if (value instanceof Byte) {
+                put(BYTE);
+                put((Byte) value);
+            } else if (value instanceof Character) {
+                put(CHAR);
+                writeVarLong((Character) value);
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                put(LIST);
+                writeVarLong(array.length);
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Serializable) {
+                put(SERIALIZED);
+                writeBytes(serialize(value));
+            } else {
+                throw new IllegalArgumentException("Unsupported job data value: " + value.getClass().getName());
+            }
+        }
+
+        private void writeKey(Object key) {
+            if (!(key instanceof String)) {
+                writeValue(key);
+                return;
+            }
+            if (keys == null) {
+                keys = new HashMap<String, Integer>();
+            }
+            Integer index = keys.get(key);
+            if (index != null) {
+                put(KEY_REF);
+                writeVarLong(index);
+            } else {
+                keys.put((String) key, keys.size());
+                put(KEY);
+                writeString((String) key);
+            }
+        }
+
+        private void writeString(String s) {
+            int length = s.length();
+            int size = 0;
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    size++;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else {
+                    size += 3;
+                }
+            }
+            writeVarLong(size);
+            ensure(size);
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    out.put((byte) c);
+                } else if (c < 0x800) {
+                    out.put((byte) (0xC0 | c >> 6));
+                    out.put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out.put((byte) (0xF0 | cp >> 18));
+                    out.put((byte) (0x80 | cp >> 12 & 0x3F));
+                    out.put((byte) (0x80 | cp >> 6 & 0x3F));
+                    out.put((byte) (0x80 | cp & 0x3F));
+                } else {
+                    // lone surrogates are written as 3 bytes like the other chars of the BMP
+                    out.put((byte) (0xE0 | c >> 12));
+                    out.put((byte) (0x80 | c >> 6 & 0x3F));
+                    out.put((byte) (0x80 | c & 0x3F));
+                }
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            out.put(bytes);
+        }
+
+        private void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                out.put((byte) (v & 0x7F | 0x80));
+                v >>>= 7;
+            }
+            out.put((byte) v);
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            out.put(b);
+        }
+
+        private void ensure(int n) {
+            if (out.remaining() < n) {
+                ByteBuffer larger = out.isDirect()
+                    ? ByteBuffer.allocateDirect(Math.max(out.capacity() * 2, out.position() + n))
+                    : ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + n));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+        }
+
+        private static long zigzag(long v) {
+            return v << 1 ^ v >> 63;
+        }
+
+    }
+
+    /**
+     * Reads the values written by an {@link Encoder} from a {@link ByteBuffer}, advancing its position
+     */
+    public static final class Decoder {
+
+        private final ByteBuffer in;
+        private List<String> keys;
+
+        public Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        public Object readValue() {
+            byte tag = in.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT:
+                    return (int) unzigzag(readVarLong());
+                case LONG:
+                    return unzigzag(readVarLong());
+                case DOUBLE:
+                    return in.getDouble();
+                case FLOAT:
+                    return in.getFloat();
+                case STRING:
+                    return readString();
+                case BYTES:
+                    return readBytes();
+                case LIST:
+                case SET: {
+                    int size = readSize();
+                    Collection<Object> collection = tag == LIST ? new ArrayList<Object>(size) : new LinkedHashSet<Object>(capacity(size));
+                    for (int i = 0; i < size; i++) {
+                        collection.add(readValue());
+                    }
+                    return collection;
+                }
+                case MAP: {
+                    int size = readSize();
+                    Map<Object, Object> map = new LinkedHashMap<Object, Object>(capacity(size));
+                    for (int i = 0; i < size; i++) {
+                        Object key = readValue();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                case DATE:
+                    return new Date(unzigzag(readVarLong()));
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                case SHORT:
+                    return (short) unzigzag(readVarLong());
+                case BYTE:
+                    return in.get();
+                case CHAR:
+                    return (char) readVarLong();
+                case SERIALIZED:
+                    return deserialize(readBytes());
+                case KEY: {
+                    String key = intern(readString());
+                    if (keys == null) {
+                        keys = new ArrayList<String>();
+                    }
+                    keys.add(key);
+                    return key;
+                }
+                case KEY_REF: {
+                    long index = readVarLong();
+                    if (keys == null || index < 0 || index >= keys.size()) {
+                        throw new IllegalArgumentException("Invalid job data key reference: " + index);
+                    }
+                    return keys.get((int) index);
+                }
+                default:
+                    throw new IllegalArgumentException("Invalid job data tag: " + tag);
+            }
+        }
+
+        private String readString() {
+            int size = readSize();
+            String s;
+            if (in.hasArray()) {
+                s = new String(in.array(), in.arrayOffset() + in.position(), size, UTF8);
+                in.position(in.position() + size);
+            } else {
+                byte[] bytes = new byte[size];
+                in.get(bytes);
+                s = new String(bytes, UTF8);
+            }
+            return s;
+        }
+
+        private byte[] readBytes() {
+            byte[] bytes = new byte[readSize()];
+            in.get(bytes);
+            return bytes;
+        }
+
+        /**
+         * Reads a number of bytes or of values, each one using at least a byte
+         */
+        private int readSize() {
+            long size = readVarLong();
+            if (size < 0 || size > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            return (int) size;
+        }
+
+        private long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Invalid varint");
+        }
+
+        private static long unzigzag(long v) {
+            return v >>> 1 ^ -(v & 1);
+        }
+
+        private static int capacity(int size) {
+            return size < 3 ? size + 1 : (int) (size / 0.75f + 1);
+        }
+
+    }
+
+    private static String intern(String key) {
+        String shared = KEYS.get(key);
+        if (shared != null) {
+            return shared;
+        }
+        if (KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        shared = KEYS.putIfAbsent(key, key);
+        return shared == null ? key : shared;
+    }
+
+    private static byte[] serialize(Object value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(value);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize job data value " + value.getClass().getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try {
+            return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to deserialize job data value: " + e.getMessage(), e);
+        }
+    }
+
+}
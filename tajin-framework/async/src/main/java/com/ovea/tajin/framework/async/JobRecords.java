@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary format of a {@link TriggeredScheduledJob} in a {@link FileJobRepository} record:
+ * <pre>
+ * version:byte id:string dedupKey:string name:string startDate:date persisted:boolean durable:boolean maxRetry:int retryDelaySecs:long
+ * currentRetry:int lastTry:date nextTry:date completionDate:date data:bytes fixedRateMillis:long fixedDelayMillis:long
+ * cron:string retryBackoff:string maxRetryDelaySecs:long
+ * </pre>
+ * Strings and byte arrays are prefixed by their length as an int, dates are epoch milliseconds or
+ * {@link Long#MIN_VALUE} for null. The job data is encoded by {@link JobDataCodec} straight into the record buffer.
+ * The dedup key follows the id so that it can be read without decoding the whole record. Records of another
+ * version, i.e. written by development snapshots, are rejected.
+ *
+ * @date 2026-10-18
+ */
+final class JobRecords {
+
+    private static final byte VERSION = 6;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private JobRecords() {
+    }
+
+    /**
+     * Writes {@code job} into {@code out} from its position, the job data being written in place by a
+     * {@link JobDataCodec.Encoder}.
+     *
+     * @return the buffer holding the record up to its position: {@code out}, or a larger copy if it was full
+     */
+    static ByteBuffer encode(TriggeredScheduledJob job, ByteBuffer out) {
+        ScheduledJob source = job.getSource();
+        out = ensure(out, 1);
+        out.put(VERSION);
+        out = writeString(out, job.getId());
+        out = writeString(out, source.getDedupKey());
+        out = writeString(out, source.getName());
+        out = ensure(out, 8 + 2 + 4 + 8 + 4);
+        writeDate(out, source.getStartDate());
+        out.put(source.isPersisted() ? (byte) 1 : 0);
+        out.put(source.isDurable() ? (byte) 1 : 0);
+        out.putInt(source.getMaxRetry());
+        out.putLong(source.getRetryDelaySecs());
+        out.putInt(job.getCurrentRetry());
+        out = ensure(out, 3 * 8);
+        writeDate(out, job.getLastTry());
+        writeDate(out, job.getNextTry());
+        writeDate(out, job.getCompletionDate());
+        out = writeData(out, source.getData());
+        out = ensure(out, 2 * 8);
+        out.putLong(source.getFixedRateMillis());
+        out.putLong(source.getFixedDelayMillis());
+        out = writeString(out, source.getCron());
+        out = writeString(out, source.getRetryBackoff() == null ? null : source.getRetryBackoff().name());
+        out = ensure(out, 8);
+        out.putLong(source.getMaxRetryDelaySecs());
+        return out;
+    }
+
+    static TriggeredScheduledJob decode(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported job record version: " + version);
+        }
+        TriggeredScheduledJob job = new TriggeredScheduledJob();
+        ScheduledJob source = new ScheduledJob();
+        job.setId(readString(in));
+        source.setDedupKey(readString(in));
+        source.setName(readString(in));
+        source.setStartDate(readDate(in));
+        source.setPersisted(in.get() != 0);
+        source.setDurable(in.get() != 0);
+        source.setMaxRetry(in.getInt());
+        source.setRetryDelaySecs(in.getLong());
+        job.setCurrentRetry(in.getInt());
+        job.setLastTry(readDate(in));
+        job.setNextTry(readDate(in));
+        job.setCompletionDate(readDate(in));
+        source.setData(decodeData(in));
+        source.setFixedRateMillis(in.getLong());
+        source.setFixedDelayMillis(in.getLong());
+        source.setCron(readString(in));
+        String backoff = readString(in);
+        source.setRetryBackoff(backoff == null ? null : RetryBackoff.valueOf(backoff));
+        source.setMaxRetryDelaySecs(in.getLong());
+        job.setSource(source);
+        return job;
+    }
+
+    /**
+     * Reads only the id of an encoded job
+     */
+    static String decodeJobId(ByteBuffer in) {
+        in.get();
+        return readString(in);
+    }
+
+    /**
+     * Reads only the dedup key of an encoded job
+     *
+     * @return the dedup key, or null if the job has none
+     */
+    static String decodeDedupKey(ByteBuffer in) {
+        in.get();
+        int idLength = in.getInt();
+        in.position(in.position() + idLength);
+        return readString(in);
+    }
+
+    static byte[] encodeId(String id) {
+        byte[] s = id.getBytes(UTF8);
+        return ByteBuffer.allocate(4 + s.length).putInt(s.length).put(s).array();
+    }
+
+    static String decodeId(ByteBuffer in) {
+        return readString(in);
+    }
+
+    /**
+     * Decodes the job data in place, without copying it out of the record
+     */
+    private static Map decodeData(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == 0) {
+            return new LinkedHashMap();
+        }
+        ByteBuffer data = in.slice();
+        data.limit(length);
+        in.position(in.position() + length);
+        return JobDataCodec.decode(data);
+    }
+
+    /**
+     * Writes the length of the encoded data, patched once written, then the data
+     */
+    private static ByteBuffer writeData(ByteBuffer out, Map data) {
+        out = ensure(out, 4);
+        int start = out.position();
+        out.putInt(0);
+        if (data != null && !data.isEmpty()) {
+            JobDataCodec.Encoder encoder = new JobDataCodec.Encoder(out);
+            encoder.writeValue(data);
+            out = encoder.getBuffer();
+            out.putInt(start, out.position() - start - 4);
+        }
+        return out;
+    }
+
+    private static ByteBuffer writeString(ByteBuffer out, String s) {
+        if (s == null) {
+            out = ensure(out, 4);
+            out.putInt(-1);
+            return out;
+        }
+        byte[] bytes = s.getBytes(UTF8);
+        out = ensure(out, 4 + bytes.length);
+        out.putInt(bytes.length).put(bytes);
+        return out;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, UTF8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeDate(ByteBuffer out, Date date) {
+        out.putLong(date == null ? NULL_DATE : date.getTime());
+    }
+
+    private static Date readDate(ByteBuffer in) {
+        long time = in.getLong();
+        return time == NULL_DATE ? null : new Date(time);
+    }
+
+    /**
+     * @return {@code out}, or a larger copy of it if it has less than {@code n} bytes remaining
+     */
+    private static ByteBuffer ensure(ByteBuffer out, int n) {
+        if (out.remaining() >= n) {
+            return out;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + n));
+        out.flip();
+        larger.put(out);
+        return larger;
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency cap and token-bucket rate limit of the jobs of a given name.
+ * <p>
+ * A job over the concurrency cap is queued in the throttle, without holding a thread, and handed back when a
+ * running job of the same name releases its slot. A job over the rate limit reserves the next free token and is
+ * told how long to wait for it, so that deferred jobs wake up one after the other instead of all together. A
+ * throttle without limits does not lock.
+ *
+ * @date 2026-10-18
+ */
+final class JobThrottle {
+
+    private final int maxConcurrent;
+    private final double tokensPerNano;
+    private final double burst;
+    private final boolean limited;
+
+    private final Queue<Runnable> waiting = new ArrayDeque<Runnable>();
+    private int running;
+    private double tokens;
+    private long refilled = System.nanoTime();
+
+    /**
+     * @param maxConcurrent max number of jobs running at the same time, 0 for no limit
+     * @param ratePerSecond max number of jobs started per second, 0 for no limit
+     * @param burst max number of jobs started at once after an idle period, when rate limited
+     */
+    JobThrottle(int maxConcurrent, double ratePerSecond, int burst) {
+        this.maxConcurrent = maxConcurrent;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.limited = maxConcurrent > 0 || ratePerSecond > 0;
+    }
+
+    /**
+     * Takes a slot and a token for {@code job}, or queues it until a slot is released
+     *
+     * @param reserved true if the job already reserved its token
+     * @return 0 if the job can run, -1 if it was queued, otherwise the nanoseconds to wait for the token it reserved
+     */
+    long tryAcquire(Runnable job, boolean reserved) {
+        if (!limited) {
+            return 0;
+        }
+        synchronized (this) {
+            if (maxConcurrent > 0 && running >= maxConcurrent) {
+                waiting.add(job);
+                return -1;
+            }
+            if (tokensPerNano > 0 && !reserved) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilled) * tokensPerNano);
+                refilled = now;
+                tokens--;
+                if (tokens < 0) {
+                    return Math.max(1, (long) Math.ceil(-tokens / tokensPerNano));
+                }
+            }
+            running++;
+            return 0;
+        }
+    }
+
+    /**
+     * Releases the slot of a job which ran
+     *
+     * @return the next queued job, to run again, or null
+     */
+    Runnable release() {
+        if (!limited) {
+            return null;
+        }
+        synchronized (this) {
+            running--;
+            return waiting.poll();
+        }
+    }
+
+    /**
+     * @return the next queued job, or null
+     */
+    synchronized Runnable nextWaiting() {
+        return waiting.poll();
+    }
+
+    synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    synchronized int getRunningCount() {
+        return running;
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the retries of a job name to a ratio of its first attempts, plus a minimum rate, over a sliding window.
+ * <p>
+ * When a downstream dependency fails, all the jobs using it fail: a budget lets a few of them retry while the
+ * others are shed, instead of multiplying the load on the dependency by the number of retries. The window is
+ * approximated by the counts of the current and of the previous period.
+ *
+ * @date 2026-10-18
+ */
+final class RetryBudget {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(10);
+
+    private final double ratio;
+    private final long minRetries;
+
+    private long windowStart = System.nanoTime();
+    private long attempts;
+    private long previousAttempts;
+    private long retries;
+    private long previousRetries;
+    private long shed;
+
+    /**
+     * @param ratio max number of retries per first attempt, i.e. 0.1 to allow 10% of retries
+     * @param minPerSecond number of retries allowed per second whatever the number of attempts
+     */
+    RetryBudget(double ratio, int minPerSecond) {
+        this.ratio = ratio;
+        this.minRetries = minPerSecond * TimeUnit.NANOSECONDS.toSeconds(WINDOW);
+    }
+
+    /**
+     * Records the first attempt of a job
+     */
+    synchronized void onAttempt() {
+        roll(System.nanoTime());
+        attempts++;
+    }
+
+    /**
+     * @return true and records a retry if the budget allows it, false if the retry must be shed
+     */
+    synchronized boolean tryRetry() {
+        roll(System.nanoTime());
+        if (previousRetries + retries < ratio * (previousAttempts + attempts) + minRetries) {
+            retries++;
+            return true;
+        }
+        shed++;
+        return false;
+    }
+
+    synchronized long getShedCount() {
+        return shed;
+    }
+
+    private void roll(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed >= WINDOW) {
+            boolean adjacent = elapsed < 2 * WINDOW;
+            previousAttempts = adjacent ? attempts : 0;
+            previousRetries = adjacent ? retries : 0;
+            attempts = 0;
+            retries = 0;
+            windowStart = now - elapsed % WINDOW;
+        }
+    }
+
+}
@@ -0,0 +1,315 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link JobTimer} based on a hierarchical timing wheel: scheduling and cancelling are O(1), whatever the number
+ * of pending tasks, and a pending task costs one small object.
+ * <p>
+ * Time is cut in ticks. Each level of the wheel is a ring of {@code wheelSize} buckets, a bucket of level
+ * {@code n} spanning {@code wheelSize^n} ticks. A task is linked in the bucket of the lowest level able to hold
+ * its deadline; when the lower level wraps, the bucket of the upper level for the new round is cascaded down.
+ * The tasks of the current bucket of level 0 are fired on every tick, so they run at most one tick late.
+ * <p>
+ * A single timer thread owns the wheel: new and cancelled tasks are handed over through lock-free queues and
+ * applied at the next tick. The timer thread only fires the tasks: they run on the given executor.
+ * <p>
+ * This class is written in Java to keep the timer loop free of dynamic dispatch.
+ *
+ * @date 2026-10-18
+ */
+public final class TimingWheelJobTimer implements JobTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(TimingWheelJobTimer.class.getName());
+
+    /** enough levels to cover 2^63 ticks with the smallest wheel size */
+    private static final int LEVELS = 63;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int FIRED = 2;
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final Bucket[][] wheels = new Bucket[LEVELS][];
+    private final Executor executor;
+    private final Thread thread;
+    private final long startTime;
+
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<Entry>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** last tick processed, only accessed by the timer thread */
+    private long currentTick;
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts a timing wheel.
+     *
+     * @param name      name of the timer thread
+     * @param tick      duration of a tick: the max lateness of a task
+     * @param unit      unit of {@code tick}
+     * @param wheelSize number of buckets per level, rounded up to a power of two
+     * @param executor  executor running the fired tasks
+     */
+    public TimingWheelJobTimer(String name, long tick, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tick <= 0) throw new IllegalArgumentException("Invalid tick: " + tick);
+        if (wheelSize < 2 || wheelSize > (1 << 20)) throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        if (executor == null) throw new NullPointerException("executor");
+        this.tickNanos = unit.toNanos(tick);
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << bits) - 1;
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new RejectedExecutionException("Timer stopped");
+        long delayNanos = Math.max(0, unit.toNanos(delay));
+        long elapsed = System.nanoTime() - startTime;
+        // round up: a task never fires early
+        long deadlineTick = (elapsed + delayNanos + tickNanos - 1) / tickNanos;
+        Entry entry = new Entry(task, deadlineTick);
+        pending.incrementAndGet();
+        added.add(entry);
+        return entry;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        return !thread.isAlive();
+    }
+
+    private void loop() {
+        while (running) {
+            long target = (System.nanoTime() - startTime) / tickNanos;
+            transfer();
+            while (currentTick < target) {
+                advance();
+            }
+            long sleep = startTime + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+        added.clear();
+        cancelled.clear();
+    }
+
+    /**
+     * Applies the pending cancellations and links the new tasks.
+     */
+    private void transfer() {
+        Entry e;
+        while ((e = cancelled.poll()) != null) {
+            e.unlink();
+        }
+        while ((e = added.poll()) != null) {
+            if (e.state == PENDING) {
+                insert(e);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next tick, cascading the upper levels which start a new round, then fires the due tasks.
+     */
+    private void advance() {
+        long tick = ++currentTick;
+        int levels = 1;
+        while (bits * levels < 63 && (tick & ((1L << (bits * levels)) - 1)) == 0) {
+            levels++;
+        }
+        for (int level = levels - 1; level > 0; level--) {
+            Bucket bucket = wheels[level] == null ? null : wheels[level][(int) ((tick >>> (bits * level)) & mask)];
+            if (bucket != null) {
+                Entry e;
+                while ((e = bucket.poll()) != null) {
+                    insert(e);
+                }
+            }
+        }
+        Bucket bucket = wheels[0] == null ? null : wheels[0][(int) (tick & mask)];
+        if (bucket != null) {
+            Entry e;
+            while ((e = bucket.poll()) != null) {
+                fire(e);
+            }
+        }
+    }
+
+    private void insert(Entry e) {
+        if (e.deadlineTick <= currentTick) {
+            fire(e);
+            return;
+        }
+        int level = 0;
+        int shift = 0;
+        while (shift + bits < 63 && (e.deadlineTick >>> shift) - (currentTick >>> shift) > mask) {
+            level++;
+            shift += bits;
+        }
+        Bucket[] wheel = wheels[level];
+        if (wheel == null) {
+            wheels[level] = wheel = new Bucket[mask + 1];
+        }
+        int i = (int) ((e.deadlineTick >>> shift) & mask);
+        Bucket bucket = wheel[i];
+        if (bucket == null) {
+            wheel[i] = bucket = new Bucket();
+        }
+        bucket.add(e);
+    }
+
+    private void fire(Entry e) {
+        if (!STATE.compareAndSet(e, PENDING, FIRED)) {
+            return;
+        }
+        pending.decrementAndGet();
+        try {
+            executor.execute(e);
+        } catch (RejectedExecutionException ex) {
+            LOGGER.log(Level.SEVERE, "Unable to run timer task " + e.task + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+    private final class Entry implements Timeout, Runnable {
+        final Runnable task;
+        final long deadlineTick;
+        volatile int state = PENDING;
+        /** links, only accessed by the timer thread */
+        Bucket bucket;
+        Entry prev;
+        Entry next;
+
+        Entry(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isDone() {
+            return state != PENDING;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // failures are reported by the task itself (see JobListener.onJobFailure)
+                LOGGER.log(Level.FINE, "Timer task " + task + " failed: " + t.getMessage(), t);
+            }
+        }
+
+        void unlink() {
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of entries, only accessed by the timer thread
+     */
+    private static final class Bucket {
+        Entry head;
+        Entry tail;
+
+        void add(Entry e) {
+            e.bucket = this;
+            e.prev = tail;
+            e.next = null;
+            if (tail == null) {
+                head = e;
+            } else {
+                tail.next = e;
+            }
+            tail = e;
+        }
+
+        void remove(Entry e) {
+            if (e.prev == null) {
+                head = e.next;
+            } else {
+                e.prev.next = e.next;
+            }
+            if (e.next == null) {
+                tail = e.prev;
+            } else {
+                e.next.prev = e.prev;
+            }
+            e.bucket = null;
+            e.prev = null;
+            e.next = null;
+        }
+
+        Entry poll() {
+            Entry e = head;
+            if (e != null) {
+                remove(e);
+            }
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava;
+
+/**
+ * Per-thread FIFO of events waiting to be dispatched to their handlers by a synchronous {@link EventBus}.
+ *
+ * <p>Pairs of event and handler are stored in two parallel circular arrays which are reused from one post
+ * to the next and only grow when a post fans out to more pairs than ever before: in steady state, queuing
+ * and draining do not allocate. Slots are cleared as soon as they are dispatched so that the queue does
+ * not retain events between posts.
+ *
+ * <p>Instances are confined to a thread and are not thread-safe. This class is written in Java to keep the
+ * dispatch loop free of dynamic dispatch.
+ *
+ * @date 2026-10-18
+ */
+public final class DispatchQueue {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] events = new Object[INITIAL_CAPACITY];
+    private EventHandler[] handlers = new EventHandler[INITIAL_CAPACITY];
+    private int head;
+    private int tail;
+    private boolean dispatching;
+
+    /**
+     * Queues {@code event} for each of {@code handlers}, in order.
+     */
+    public void offer(Object event, EventHandler[] handlers) {
+        for (EventHandler handler : handlers) {
+            offer(event, handler);
+        }
+    }
+
+    public void offer(Object event, EventHandler handler) {
+        events[tail] = event;
+        this.handlers[tail] = handler;
+        tail = (tail + 1) & (events.length - 1);
+        if (tail == head) {
+            grow();
+        }
+    }
+
+    /**
+     * Dispatches all the queued events through {@code bus}, including the ones queued while draining.
+     * Does nothing if this thread is already draining the queue: events posted from a handler are
+     * dispatched after the in-progress dispatch completes, in order.
+     * <p>
+     * If a handler throws, the remaining events are discarded and the exception is propagated.
+     */
+    public void drain(EventBus bus) {
+        if (dispatching) {
+            return;
+        }
+        dispatching = true;
+        try {
+            while (head != tail) {
+                int i = head;
+                Object event = events[i];
+                EventHandler handler = handlers[i];
+                events[i] = null;
+                handlers[i] = null;
+                head = (i + 1) & (events.length - 1);
+                bus.dispatch(event, handler);
+            }
+        } finally {
+            dispatching = false;
+            if (head != tail) {
+                clear();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    private void clear() {
+        while (head != tail) {
+            events[head] = null;
+            handlers[head] = null;
+            head = (head + 1) & (events.length - 1);
+        }
+        head = tail = 0;
+    }
+
+    /**
+     * Doubles the capacity when the queue is full (head == tail after an offer).
+     */
+    private void grow() {
+        int n = events.length;
+        int r = n - head;
+        Object[] e = new Object[n << 1];
+        EventHandler[] h = new EventHandler[n << 1];
+        System.arraycopy(events, head, e, 0, r);
+        System.arraycopy(events, 0, e, r, head);
+        System.arraycopy(handlers, head, h, 0, r);
+        System.arraycopy(handlers, 0, h, r, head);
+        events = e;
+        handlers = h;
+        head = 0;
+        tail = n;
+    }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Calls a handler method on its target for a given event.
+ * <p>
+ * Invokers are built once per {@link EventHandler}. When the running JVM provides
+ * {@code java.lang.invoke.LambdaMetafactory} (Java 8+), the handler method is spun into a
+ * {@link Target} implementation that calls it directly, like a method reference would. This
+ * removes the argument array, access checks and unwrapping of {@link Method#invoke(Object, Object...)}
+ * from each delivery. Handlers that cannot be linked that way (non-public class or method, older
+ * JVM) are invoked through plain reflection.
+ * <p>
+ * This class is written in Java because the generated targets are obtained through
+ * signature-polymorphic {@link MethodHandle} calls, which cannot be expressed in Groovy. It is public
+ * so that Groovy callers get a generated call site instead of a reflective one.
+ *
+ * @date 2026-10-18
+ */
+public abstract class HandlerInvoker {
+
+    private static final Logger LOGGER = Logger.getLogger(HandlerInvoker.class.getName());
+
+    private static final MethodType TARGET_TYPE = MethodType.methodType(void.class, Object.class);
+    private static final MethodHandle METAFACTORY = findMetafactory();
+
+    /**
+     * Invokes the handler with {@code event}. Exceptions thrown by the handler are propagated as-is.
+     */
+    public abstract void invoke(Object event) throws Throwable;
+
+    static HandlerInvoker create(Object target, Method method) {
+        if (METAFACTORY != null) {
+            try {
+                return new DirectInvoker(spin(target, method));
+            } catch (Throwable e) {
+                // not linkable from here (access, bridge method...): use reflection
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Unable to link handler " + method + ", using reflection: " + e, e);
+                }
+            }
+        }
+        return reflective(target, method);
+    }
+
+    static HandlerInvoker reflective(Object target, Method method) {
+        return new ReflectiveInvoker(target, method);
+    }
+
+    private static Target spin(Object target, Method method) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle impl = lookup.unreflect(method);
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        MethodType factoryType = isStatic ?
+            MethodType.methodType(Target.class) :
+            MethodType.methodType(Target.class, method.getDeclaringClass());
+        CallSite site = (CallSite) METAFACTORY.invokeWithArguments(
+            lookup,
+            "invoke",
+            factoryType,
+            TARGET_TYPE,
+            impl,
+            MethodType.methodType(void.class, method.getParameterTypes()[0]));
+        return isStatic ?
+            (Target) site.getTarget().invokeWithArguments() :
+            (Target) site.getTarget().invokeWithArguments(target);
+    }
+
+    private static MethodHandle findMetafactory() {
+        try {
+            Class<?> c = Class.forName("java.lang.invoke.LambdaMetafactory");
+            return MethodHandles.publicLookup().findStatic(c, "metafactory", MethodType.methodType(
+                CallSite.class,
+                MethodHandles.Lookup.class,
+                String.class,
+                MethodType.class,
+                MethodType.class,
+                MethodHandle.class,
+                MethodType.class));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Functional interface implemented by the generated handler calls.
+     */
+    public interface Target {
+        void invoke(Object event);
+    }
+
+    public static final class DirectInvoker extends HandlerInvoker {
+        private final Target target;
+
+        DirectInvoker(Target target) {
+            this.target = target;
+        }
+
+        @Override
+        public void invoke(Object event) {
+            target.invoke(event);
+        }
+    }
+
+    public static final class ReflectiveInvoker extends HandlerInvoker {
+        private final Object target;
+        private final Method method;
+
+        ReflectiveInvoker(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        @Override
+        public void invoke(Object event) throws Throwable {
+            try {
+                method.invoke(target, event);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,394 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link EventBus} handing posted events to consumer threads through a preallocated ring buffer.
+ *
+ * <p>Posting claims the next sequence of the ring, stores the event and the handler array of its
+ * class in the slot and publishes it: no object is allocated per event. Each consumer thread
+ * follows the ring and, in batches, delivers to all their handlers the events whose sequence maps
+ * to it. With a single consumer, events are delivered in posting order.
+ *
+ * <p>When the ring is full, posting threads wait for the slowest consumer. A handler posting
+ * from a consumer thread does not wait, since it may be the slowest consumer: its event is handed
+ * off to an overflow queue, delivered by the consumers between two batches.
+ *
+ * <p>The consumer threads are daemon threads, started by {@link #start()}. Posting after
+ * {@link #shutdown(long, TimeUnit)} is rejected with a {@link RejectedExecutionException}.
+ *
+ * <p>This class is written in Java to keep the hot path free of dynamic dispatch.
+ *
+ * @date 2026-10-18
+ */
+public class RingBufferEventBus extends EventBus {
+
+    /**
+     * How idle consumers wait for new events
+     */
+    public enum WaitStrategy {
+        /** spin on the ring: lowest latency, burns a core per consumer */
+        BUSY_SPIN,
+        /** spin, yielding the CPU between checks */
+        YIELD,
+        /** park until a producer signals new events: lowest CPU usage */
+        BLOCK
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(RingBufferEventBus.class.getName());
+
+    private final String identifier;
+    private final Slot[] slots;
+    private final int mask;
+    /** sequence published in each slot, -1 if none yet */
+    private final AtomicLongArray published;
+    /** last claimed sequence */
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final Consumer[] consumers;
+    private final WaitStrategy waitStrategy;
+    /** events posted by the consumer threads while the ring is full */
+    private final Queue<Slot> overflow = new ConcurrentLinkedQueue<Slot>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger blockedConsumers = new AtomicInteger();
+
+    /** last known sequence reached by all consumers, read by producers to avoid scanning them */
+    private volatile long gatingSequence = -1;
+    private volatile boolean running = true;
+    private boolean started;
+
+    /**
+     * Creates a ring buffer bus, delivering events once {@link #start() started}.
+     *
+     * @param identifier    a brief name for this bus, used in logs and thread names.
+     * @param size          number of slots, rounded up to a power of two.
+     * @param consumerCount number of consumer threads.
+     * @param waitStrategy  how idle consumers wait for events.
+     */
+    public RingBufferEventBus(String identifier, int size, int consumerCount, WaitStrategy waitStrategy) {
+        super(identifier);
+        this.identifier = identifier;
+        if (size <= 0) throw new IllegalArgumentException("Invalid ring buffer size: " + size);
+        if (consumerCount <= 0) throw new IllegalArgumentException("Invalid consumer count: " + consumerCount);
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+        this.consumers = new Consumer[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new Consumer(i);
+        }
+    }
+
+    /**
+     * Starts the consumer threads. Events posted before are delivered once started.
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Event bus " + identifier + " already started");
+        }
+        started = true;
+        for (int i = 0; i < consumers.length; i++) {
+            Thread t = new ConsumerThread(consumers[i], identifier + "-ring-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    @Override
+    public void post(Object event) {
+        EventHandler[] handlers = handlersFor(event.getClass());
+        if (handlers.length > 0) {
+            publish(event, handlers);
+        } else if (!(event instanceof DeadEvent)) {
+            post(new DeadEvent(this, event));
+        }
+    }
+
+    /**
+     * Publishes {@code event} for {@code handlers}, used by {@link #postAsync(Object)}.
+     */
+    @Override
+    public void enqueueAndDispatch(Object event, EventHandler[] handlers) {
+        publish(event, handlers);
+    }
+
+    /**
+     * Stops the consumer threads once they have delivered the events already posted. Threads waiting
+     * for a slot are rejected.
+     *
+     * @param timeout max time to wait for each consumer
+     * @return true if all consumers terminated in time
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        signalConsumers();
+        boolean terminated = true;
+        for (Consumer consumer : consumers) {
+            Thread t = consumer.thread;
+            if (t != null) {
+                t.join(unit.toMillis(timeout));
+                terminated &= !t.isAlive();
+            }
+        }
+        return terminated;
+    }
+
+    /**
+     * @return number of slots of the ring
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return number of events posted but not yet taken by the slowest consumer
+     */
+    public long getBacklog() {
+        return claimed.get() - minConsumerSequence();
+    }
+
+    private void publish(Object event, EventHandler[] handlers) {
+        if (!running) {
+            throw new RejectedExecutionException("Event bus " + identifier + " shut down");
+        }
+        long seq;
+        Thread current = Thread.currentThread();
+        if (current instanceof ConsumerThread && ((ConsumerThread) current).bus() == this) {
+            // only claim a free slot: waiting could wait for this very consumer
+            long last;
+            do {
+                last = claimed.get();
+                long wrapPoint = last + 1 - slots.length;
+                if (wrapPoint > gatingSequence) {
+                    long min = minConsumerSequence();
+                    gatingSequence = min;
+                    if (wrapPoint > min) {
+                        overflow.add(new Slot(event, handlers));
+                        return;
+                    }
+                }
+            } while (!claimed.compareAndSet(last, last + 1));
+            seq = last + 1;
+        } else {
+            seq = claimed.incrementAndGet();
+            long wrapPoint = seq - slots.length;
+            if (wrapPoint > gatingSequence) {
+                awaitSlot(wrapPoint);
+            }
+        }
+        int index = (int) (seq & mask);
+        Slot slot = slots[index];
+        slot.event = event;
+        slot.handlers = handlers;
+        published.set(index, seq);
+        if (waitStrategy == WaitStrategy.BLOCK && blockedConsumers.get() > 0) {
+            signalConsumers();
+        }
+    }
+
+    private void awaitSlot(long wrapPoint) {
+        long min;
+        while (wrapPoint > (min = minConsumerSequence())) {
+            if (!running) {
+                // the claimed slot stays empty: the consumers are stopping anyway
+                throw new RejectedExecutionException("Event bus " + identifier + " shut down");
+            }
+            LockSupport.parkNanos(1L);
+        }
+        gatingSequence = min;
+    }
+
+    private long minConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            long s = consumer.sequence.get();
+            if (s < min) {
+                min = s;
+            }
+        }
+        return min;
+    }
+
+    private void signalConsumers() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Slot {
+        Object event;
+        EventHandler[] handlers;
+
+        Slot() {
+        }
+
+        Slot(Object event, EventHandler[] handlers) {
+            this.event = event;
+            this.handlers = handlers;
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final int id;
+        /** last sequence this consumer is done with, read by producers */
+        private final AtomicLong sequence = new AtomicLong(-1);
+        /** next sequence to read, only accessed by the consumer thread */
+        private long next;
+        private volatile Thread thread;
+
+        Consumer(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                boolean progressed = processAvailable();
+                progressed |= processOverflow();
+                if (!progressed) {
+                    idle();
+                }
+            }
+            // the handlers may hand events off while the ring is drained
+            boolean progressed;
+            do {
+                progressed = processAvailable();
+                progressed |= processOverflow();
+            } while (progressed);
+        }
+
+        /**
+         * Delivers the events handed off by the consumer threads.
+         *
+         * @return true if at least one event was delivered
+         */
+        boolean processOverflow() {
+            boolean progressed = false;
+            Slot slot;
+            while ((slot = overflow.poll()) != null) {
+                progressed = true;
+                deliver(slot.event, slot.handlers);
+            }
+            return progressed;
+        }
+
+        /**
+         * Delivers all the published events not read yet.
+         *
+         * @return true if at least one slot was read
+         */
+        boolean processAvailable() {
+            boolean progressed = false;
+            while (true) {
+                long seq = next;
+                int index = (int) (seq & mask);
+                if (published.get(index) != seq) {
+                    return progressed;
+                }
+                next = seq + 1;
+                progressed = true;
+                if (seq % consumers.length != id) {
+                    sequence.lazySet(seq);
+                    continue;
+                }
+                Slot slot = slots[index];
+                Object event = slot.event;
+                EventHandler[] handlers = slot.handlers;
+                slot.event = null;
+                slot.handlers = null;
+                // the slot can be reused as soon as its content is read
+                sequence.lazySet(seq);
+                deliver(event, handlers);
+            }
+        }
+
+        private void deliver(Object event, EventHandler[] handlers) {
+            for (EventHandler handler : handlers) {
+                try {
+                    handler.handleEvent(event);
+                } catch (Throwable e) {
+                    LOGGER.log(Level.SEVERE, "Could not dispatch event " + event + " to handler " + handler + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        private void idle() {
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                case BLOCK:
+                    lock.lock();
+                    try {
+                        blockedConsumers.incrementAndGet();
+                        if (running && published.get((int) (next & mask)) != next) {
+                            // timed to recover from a signal missed while running is flipped
+                            notEmpty.await(100, TimeUnit.MILLISECONDS);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        running = false;
+                    } finally {
+                        blockedConsumers.decrementAndGet();
+                        lock.unlock();
+                    }
+                    break;
+            }
+        }
+    }
+
+    private final class ConsumerThread extends Thread {
+        ConsumerThread(Consumer consumer, String name) {
+            super(consumer, name);
+            consumer.thread = this;
+        }
+
+        RingBufferEventBus bus() {
+            return RingBufferEventBus.this;
+        }
+    }
+
+}
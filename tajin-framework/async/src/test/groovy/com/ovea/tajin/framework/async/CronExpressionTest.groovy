@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+import java.text.SimpleDateFormat
+
+/**
+ * @date 2026-10-18
+ */
+@RunWith(JUnit4)
+class CronExpressionTest {
+
+    static final TimeZone PARIS = TimeZone.getTimeZone('Europe/Paris')
+    static final TimeZone UTC = TimeZone.getTimeZone('UTC')
+
+    @Test
+    void test_next_fire_times() throws Exception {
+        assert fireTimes('0 0 * * *', '2026-10-18 10:17:00 +0000', UTC, 2) == ['2026-10-19 00:00:00 +0000', '2026-10-20 00:00:00 +0000']
+        assert fireTimes('*/15 * * * *', '2026-01-01 00:07:00 +0000', UTC, 3) == ['2026-01-01 00:15:00 +0000', '2026-01-01 00:30:00 +0000', '2026-01-01 00:45:00 +0000']
+        assert fireTimes('30 8 * * MON-FRI', '2026-10-16 09:00:00 +0000', UTC, 2) == ['2026-10-19 08:30:00 +0000', '2026-10-20 08:30:00 +0000']
+        assert fireTimes('0 0 31 * *', '2026-01-31 00:00:00 +0000', UTC, 2) == ['2026-03-31 00:00:00 +0000', '2026-05-31 00:00:00 +0000']
+        // strictly after
+        assert fireTimes('0 0 0 * * ?', '2026-01-01 00:00:00 +0000', UTC, 1) == ['2026-01-02 00:00:00 +0000']
+        assert CronExpression.parse('0 0 30 2 *').nextFireTime(time('2026-01-01 00:00:00 +0000'), UTC) == -1
+    }
+
+    @Test
+    void test_day_of_month_or_day_of_week() throws Exception {
+        // both restricted: either one matches
+        assert fireTimes('0 0 0 13 * FRI', '2026-01-01 00:00:00 +0000', UTC, 4) == ['2026-01-02 00:00:00 +0000', '2026-01-09 00:00:00 +0000', '2026-01-13 00:00:00 +0000', '2026-01-16 00:00:00 +0000']
+        // one unrestricted: the other one must match
+        assert fireTimes('0 0 0 * * MON', '2026-01-01 00:00:00 +0000', UTC, 2) == ['2026-01-05 00:00:00 +0000', '2026-01-12 00:00:00 +0000']
+        assert fireTimes('0 0 0 13 * ?', '2026-01-01 00:00:00 +0000', UTC, 2) == ['2026-01-13 00:00:00 +0000', '2026-02-13 00:00:00 +0000']
+        // Sunday is 0 and 7
+        assert fireTimes('0 0 * * 0', '2026-10-18 10:00:00 +0000', UTC, 1) == fireTimes('0 0 * * 7', '2026-10-18 10:00:00 +0000', UTC, 1)
+    }
+
+    @Test
+    void test_february_29() throws Exception {
+        assert fireTimes('0 0 29 2 *', '2026-01-01 00:00:00 +0000', UTC, 3) == ['2028-02-29 00:00:00 +0000', '2032-02-29 00:00:00 +0000', '2036-02-29 00:00:00 +0000']
+        assert fireTimes('0 0 12 29 2 ?', '2028-02-29 12:00:00 +0000', UTC, 1) == ['2032-02-29 12:00:00 +0000']
+    }
+
+    @Test
+    void test_daylight_saving_gap() throws Exception {
+        // 2026-03-29 02:00 CET: the clocks jump to 03:00 CEST
+        assert fireTimes('0 30 2 * * ?', '2026-03-28 12:00:00 +0100', PARIS, 3) == ['2026-03-29 03:30:00 +0200', '2026-03-30 02:30:00 +0200', '2026-03-31 02:30:00 +0200']
+        assert fireTimes('0 0 * * * ?', '2026-03-29 00:30:00 +0100', PARIS, 3) == ['2026-03-29 01:00:00 +0100', '2026-03-29 03:00:00 +0200', '2026-03-29 04:00:00 +0200']
+        assert fireTimes('0 */20 * * * ?', '2026-03-29 01:30:00 +0100', PARIS, 4) == ['2026-03-29 01:40:00 +0100', '2026-03-29 03:00:00 +0200', '2026-03-29 03:20:00 +0200', '2026-03-29 03:40:00 +0200']
+    }
+
+    @Test
+    void test_daylight_saving_overlap() throws Exception {
+        // 2026-10-25 03:00 CEST: the clocks go back to 02:00 CET
+        assert fireTimes('0 30 2 * * ?', '2026-10-24 12:00:00 +0200', PARIS, 2) == ['2026-10-25 02:30:00 +0200', '2026-10-26 02:30:00 +0100']
+        assert fireTimes('0 0 * * * ?', '2026-10-25 01:30:00 +0200', PARIS, 3) == ['2026-10-25 02:00:00 +0200', '2026-10-25 03:00:00 +0100', '2026-10-25 04:00:00 +0100']
+        // from the repeated hour
+        assert fireTimes('0 30 2 * * ?', '2026-10-25 02:10:00 +0100', PARIS, 2) == ['2026-10-25 02:30:00 +0100', '2026-10-26 02:30:00 +0100']
+    }
+
+    @Test
+    void test_invalid() throws Exception {
+        ['61 * * * *', '* * * *', '* * 32 * *', '5-1 * * * *', '* * * FOO *'].each {
+            try {
+                CronExpression.parse(it)
+                assert false: it
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private static List<String> fireTimes(String expression, String from, TimeZone zone, int count) {
+        CronExpression cron = CronExpression.parse(expression)
+        long t = time(from)
+        List<String> times = []
+        count.times {
+            t = cron.nextFireTime(t, zone)
+            times << format(t, zone)
+        }
+        return times
+    }
+
+    private static long time(String s) {
+        return new SimpleDateFormat('yyyy-MM-dd HH:mm:ss Z', Locale.ROOT).parse(s).time
+    }
+
+    private static String format(long time, TimeZone zone) {
+        SimpleDateFormat format = new SimpleDateFormat('yyyy-MM-dd HH:mm:ss Z', Locale.ROOT)
+        format.timeZone = zone
+        return format.format(new Date(time))
+    }
+
+}
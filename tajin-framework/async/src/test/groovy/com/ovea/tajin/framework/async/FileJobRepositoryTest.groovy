@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * @date 2026-10-18
+ */
+@RunWith(JUnit4)
+class FileJobRepositoryTest {
+
+    File dir
+    FileJobRepository repository
+
+    @Before
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory('tajin-jobs').toFile()
+        repository = open(dir)
+    }
+
+    @After
+    void tearDown() throws Exception {
+        repository?.close()
+        dir.deleteDir()
+    }
+
+    @Test
+    void test_replay_after_torn_tail() throws Exception {
+        TriggeredScheduledJob a = job('a', 'ka')
+        TriggeredScheduledJob b = job('b', 'kb')
+        TriggeredScheduledJob c = job('c', null)
+        repository.insertAll([a, b, c])
+        repository.delete([b])
+        a.currentRetry = 2
+        repository.update(a)
+        int size = repository.logSize
+        repository.close()
+        repository = null
+
+        // half-written record: the length is written last, and the index checkpoint is lost
+        assert new File(dir, 'jobs.idx').delete()
+        write(dir, size, 0, 0x12345678, [1, 2, 3, 4, 5] as byte[])
+        repository = open(dir)
+        assert repository.logSize == size
+        assertJobs(repository, [a, c])
+
+        // corrupted record: its checksum does not match
+        repository.close()
+        assert new File(dir, 'jobs.idx').delete()
+        write(dir, size, 100, 0x12345678, new byte[100])
+        repository = open(dir)
+        assert repository.logSize == size
+        assertJobs(repository, [a, c])
+
+        // the log goes on after the discarded records
+        TriggeredScheduledJob d = job('d', 'kb')
+        repository.insert(d)
+        repository.close()
+        assert new File(dir, 'jobs.idx').delete()
+        repository = open(dir)
+        assertJobs(repository, [a, c, d])
+    }
+
+    @Test
+    void test_replay_after_checkpoint() throws Exception {
+        TriggeredScheduledJob a = job('a', 'ka')
+        TriggeredScheduledJob b = job('b', 'kb')
+        repository.insertAll([a, b])
+        repository.close()
+
+        // records appended after the checkpoint written on close, then a crash leaving a torn record
+        repository = open(dir)
+        TriggeredScheduledJob c = job('c', 'kc')
+        repository.insert(c)
+        a.currentRetry = 1
+        repository.update(a)
+        repository.delete([b])
+        File crashed = new File(dir, 'crashed')
+        assert crashed.mkdir()
+        ['jobs.log', 'jobs.idx'].each {
+            Files.copy(new File(dir, it).toPath(), new File(crashed, it).toPath(), StandardCopyOption.REPLACE_EXISTING)
+        }
+        write(crashed, repository.logSize, 50, 0, new byte[20])
+
+        FileJobRepository recovered = open(crashed)
+        try {
+            assertJobs(recovered, [a, c])
+            try {
+                recovered.insert(job('e', 'kc'))
+                assert false
+            } catch (DuplicateJobException ignored) {
+            }
+            // the dedup key of the deleted job is free
+            recovered.insert(job('f', 'kb'))
+        } finally {
+            recovered.close()
+        }
+    }
+
+    @Test
+    void test_compaction() throws Exception {
+        List<TriggeredScheduledJob> jobs = (0..<2000).collect { job("job-${it}", "key-${it}") }
+        repository.insertAll(jobs)
+        assert !repository.compactIfNeeded()
+
+        List<TriggeredScheduledJob> completed = jobs.take(1500)
+        List<TriggeredScheduledJob> pending = jobs.drop(1500)
+        completed.each { it.completionDate = new Date() }
+        repository.updateAll(completed)
+        int before = repository.logSize
+
+        assert repository.compactIfNeeded()
+        assert repository.compactionCount == 1
+        assert repository.logSize < before.intdiv(3)
+        assert !repository.compactIfNeeded()
+        assertJobs(repository, pending)
+        assert repository.listPendingJobs(null, 10)*.id == pending*.id.sort().take(10)
+
+        // the dedup keys follow the compacted records
+        try {
+            repository.insert(job('other', 'key-1999'))
+            assert false
+        } catch (DuplicateJobException ignored) {
+        }
+        TriggeredScheduledJob reused = job('reused', 'key-0')
+        repository.insert(reused)
+        pending << reused
+
+        // from the checkpoint written by the compaction, then from a scan
+        repository.close()
+        repository = open(dir)
+        assertJobs(repository, pending)
+        repository.close()
+        assert new File(dir, 'jobs.idx').delete()
+        repository = open(dir)
+        assertJobs(repository, pending)
+    }
+
+    private static FileJobRepository open(File dir) {
+        FileJobRepository repository = new FileJobRepository(dir, false, 0)
+        repository.init()
+        return repository
+    }
+
+    private static TriggeredScheduledJob job(String id, String dedupKey) {
+        return new TriggeredScheduledJob(
+            id: id,
+            nextTry: new Date(1792310400000L),
+            source: new ScheduledJob(name: "name-${id}", dedupKey: dedupKey, data: [id: id, payload: 'x' * 1000, values: [1, 2L, 'three']]))
+    }
+
+    private static void assertJobs(FileJobRepository repository, List<TriggeredScheduledJob> expected) {
+        assert repository.pendingCount == expected.size()
+        Map<String, TriggeredScheduledJob> actual = repository.listPendingJobs().collectEntries { [it.id, it] }
+        assert actual.keySet() == expected*.id as Set
+        expected.each {
+            TriggeredScheduledJob job = actual[it.id]
+            assert job.source.name == it.source.name
+            assert job.source.dedupKey == it.source.dedupKey
+            assert job.source.data == it.source.data
+            assert job.nextTry == it.nextTry
+            assert job.currentRetry == it.currentRetry
+        }
+    }
+
+    /**
+     * Writes a record header and payload at {@code offset} of the log, as a crash in the middle of an append would
+     */
+    private static void write(File dir, long offset, int length, int crc, byte[] payload) {
+        RandomAccessFile file = new RandomAccessFile(new File(dir, 'jobs.log'), 'rw')
+        try {
+            file.seek(offset)
+            file.writeInt(length)
+            file.writeInt(crc)
+            file.write(payload)
+        } finally {
+            file.close()
+        }
+    }
+
+}
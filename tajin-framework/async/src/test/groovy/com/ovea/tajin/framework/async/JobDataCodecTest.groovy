@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async
+
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+
+/**
+ * @date 2026-10-18
+ */
+@RunWith(JUnit4)
+class JobDataCodecTest {
+
+    @Test
+    void test_round_trip_of_each_tag() throws Exception {
+        roundTrip(null, JobDataCodec.NULL)
+        roundTrip(false, JobDataCodec.FALSE)
+        roundTrip(true, JobDataCodec.TRUE)
+        [0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE].each { roundTrip(it, JobDataCodec.INT) }
+        [0L, -64L, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE].each { roundTrip(it, JobDataCodec.LONG) }
+        [0d, -1.5d, Double.MAX_VALUE, Double.NaN].each { roundTrip(it, JobDataCodec.DOUBLE) }
+        [0f, 3.25f, Float.MIN_VALUE].each { roundTrip(it, JobDataCodec.FLOAT) }
+        ['', 'abc', 'caf\u00e9', '\u20ac', '\uD83D\uDE00', 'x' * 1000].each { roundTrip(it, JobDataCodec.STRING) }
+        roundTrip([1, 'a', null, [2]], JobDataCodec.LIST)
+        roundTrip([], JobDataCodec.LIST)
+        roundTrip([a: 1, b: [c: 'd']], JobDataCodec.MAP)
+        roundTrip([:], JobDataCodec.MAP)
+        roundTrip(new Date(1792310400000L), JobDataCodec.DATE)
+        roundTrip(new BigDecimal('-12345678901234567890.000123'), JobDataCodec.BIG_DECIMAL)
+        roundTrip(new BigInteger('123456789012345678901234567890'), JobDataCodec.BIG_INTEGER)
+        [(short) 0, Short.MIN_VALUE, Short.MAX_VALUE].each { roundTrip(it, JobDataCodec.SHORT) }
+        [(byte) 0, Byte.MIN_VALUE, Byte.MAX_VALUE].each { roundTrip(it, JobDataCodec.BYTE) }
+        ['a' as char, '\u20ac' as char, Character.MAX_VALUE].each { roundTrip(it, JobDataCodec.CHAR) }
+        roundTrip(['b', 'a', 'c'] as LinkedHashSet, JobDataCodec.SET)
+        roundTrip(UUID.fromString('b3c6f1a4-1d53-4a0e-9a62-7fcb0f6f5b2e'), JobDataCodec.SERIALIZED)
+
+        byte[] bytes = [0, 1, -1, 127] as byte[]
+        assert Arrays.equals((byte[]) decode(encode(bytes, JobDataCodec.BYTES)), bytes)
+    }
+
+    @Test
+    void test_conversions() throws Exception {
+        assert decode(encode(TimeUnit.SECONDS, JobDataCodec.STRING)) == 'SECONDS'
+        assert decode(encode(new StringBuilder('sb'), JobDataCodec.STRING)) == 'sb'
+        assert decode(encode([1, 'a'] as Object[], JobDataCodec.LIST)) == [1, 'a']
+        try {
+            encode(new Object(), JobDataCodec.NULL)
+            assert false
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    void test_map_keys_are_written_once() throws Exception {
+        Map data = [items: [[id: 1, name: 'a'], [id: 2, name: 'b'], [id: 3, name: 'c']]]
+        byte[] bytes = JobDataCodec.encode(data)
+        assert JobDataCodec.decode(ByteBuffer.wrap(bytes)) == data
+        assert count(bytes, JobDataCodec.KEY) == 3
+        assert count(bytes, JobDataCodec.KEY_REF) == 4
+
+        // keys are shared between decoded jobs
+        Map a = JobDataCodec.decode(ByteBuffer.wrap(bytes))
+        Map b = JobDataCodec.decode(ByteBuffer.wrap(bytes))
+        assert a.keySet().iterator().next().is(b.keySet().iterator().next())
+    }
+
+    @Test
+    void test_decode_from_direct_buffer_and_slice() throws Exception {
+        Map data = [name: 'caf\u00e9', values: [1L, 2.5d, null], nested: [flag: true]]
+        byte[] bytes = JobDataCodec.encode(data)
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 8)
+        direct.position(4)
+        direct.put(bytes)
+        direct.position(4)
+        direct.limit(4 + bytes.length)
+        ByteBuffer slice = direct.slice()
+        assert JobDataCodec.decode(slice) == data
+        assert !slice.hasRemaining()
+    }
+
+    @Test
+    void test_truncated_input() throws Exception {
+        Map data = [name: 'caf\u00e9', count: 300, items: [[id: 1L], [id: 2L]], date: new Date(0), bytes: [1, 2, 3] as byte[], uuid: UUID.randomUUID()]
+        byte[] bytes = JobDataCodec.encode(data)
+        for (int length = 0; length < bytes.length; length++) {
+            [ByteBuffer.wrap(Arrays.copyOf(bytes, length)), ByteBuffer.wrap(bytes, 0, length).slice(), ByteBuffer.wrap(bytes, 0, length)].each {
+                try {
+                    JobDataCodec.decode(it)
+                    assert false: "decoded ${length} of ${bytes.length} bytes"
+                } catch (BufferUnderflowException ignored) {
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_invalid_input() throws Exception {
+        [
+            [99] as byte[],
+            [JobDataCodec.STRING, 1, 'a' as char] as byte[],
+            [JobDataCodec.MAP, 1, JobDataCodec.KEY_REF, 0, JobDataCodec.NULL] as byte[],
+        ].each {
+            try {
+                JobDataCodec.decode(ByteBuffer.wrap(it))
+                assert false
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private static void roundTrip(Object value, byte tag) {
+        Object decoded = decode(encode(value, tag))
+        assert decoded == value || (value instanceof Double && ((Double) value).isNaN() && ((Double) decoded).isNaN())
+        assert decoded == null || decoded.class == value.class || (value instanceof List && decoded instanceof List) || (value instanceof Map && decoded instanceof Map) || (value instanceof Set && decoded instanceof Set)
+    }
+
+    private static ByteBuffer encode(Object value, byte tag) {
+        // starts with a buffer too small to check that it grows
+        JobDataCodec.Encoder encoder = new JobDataCodec.Encoder(ByteBuffer.allocate(1))
+        encoder.writeValue(value)
+        ByteBuffer buffer = encoder.getBuffer()
+        buffer.flip()
+        assert buffer.get(0) == tag
+        return buffer
+    }
+
+    private static Object decode(ByteBuffer buffer) {
+        Object value = new JobDataCodec.Decoder(buffer).readValue()
+        assert !buffer.hasRemaining()
+        return value
+    }
+
+    private static int count(byte[] bytes, byte b) {
+        int n = 0
+        for (byte each : bytes) {
+            if (each == b) n++
+        }
+        return n
+    }
+
+}
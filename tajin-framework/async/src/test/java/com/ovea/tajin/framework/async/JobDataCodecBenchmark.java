@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares {@link JobDataCodec} with Java serialization and JSON on a typical job payload: encoded size and time
+ * per encode and decode round trip. Not a unit test: run its {@code main} method from the test classpath.
+ *
+ * @date 2026-10-18
+ */
+public final class JobDataCodecBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS = 200000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> data = payload();
+        Format[] formats = {new Codec(), new JavaSerialization(), new Json()};
+        for (Format format : formats) {
+            System.out.println(String.format("%-20s %4d bytes", format.getClass().getSimpleName(), format.encode(data).length));
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            StringBuilder line = new StringBuilder("round " + round + ":");
+            for (Format format : formats) {
+                long start = System.nanoTime();
+                long checksum = 0;
+                for (int i = 0; i < OPERATIONS; i++) {
+                    checksum += format.decode(format.encode(data)).size();
+                }
+                long time = System.nanoTime() - start;
+                if (checksum != (long) OPERATIONS * data.size()) {
+                    throw new AssertionError(format.getClass().getSimpleName() + " lost entries");
+                }
+                line.append(String.format("  %s %7.0f ns/op", format.getClass().getSimpleName(), (double) time / OPERATIONS));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static Map<String, Object> payload() {
+        Map<String, Object> address = new LinkedHashMap<String, Object>();
+        address.put("street", "12 rue de la Paix");
+        address.put("city", "Montr\u00e9al");
+        address.put("zip", "H2X 1Y4");
+        Map<String, Object> data = new LinkedHashMap<String, Object>();
+        data.put("userId", 1234567890123L);
+        data.put("email", "john.doe@example.com");
+        data.put("template", "welcome");
+        data.put("locale", "fr_CA");
+        data.put("attempt", 3);
+        data.put("premium", true);
+        data.put("amount", 149.95d);
+        data.put("sentAt", new Date(1792300000000L));
+        data.put("productIds", Arrays.asList(101L, 202L, 303L, 404L));
+        data.put("address", address);
+        return data;
+    }
+
+    interface Format {
+        byte[] encode(Map<String, Object> data) throws Exception;
+
+        Map<?, ?> decode(byte[] bytes) throws Exception;
+    }
+
+    static final class Codec implements Format {
+        @Override
+        public byte[] encode(Map<String, Object> data) {
+            return JobDataCodec.encode(data);
+        }
+
+        @Override
+        public Map<?, ?> decode(byte[] bytes) {
+            return JobDataCodec.decode(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    static final class JavaSerialization implements Format {
+        @Override
+        public byte[] encode(Map<String, Object> data) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(new HashMap<String, Object>(data));
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public Map<?, ?> decode(byte[] bytes) throws Exception {
+            return (Map<?, ?>) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+        }
+    }
+
+    static final class Json implements Format {
+        @Override
+        public byte[] encode(Map<String, Object> data) {
+            return JsonOutput.toJson(data).getBytes(UTF8);
+        }
+
+        @Override
+        public Map<?, ?> decode(byte[] bytes) {
+            return (Map<?, ?>) new JsonSlurper().parseText(new String(bytes, UTF8));
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time and the heap allocated per {@link EventBus#post(Object)} on the synchronous path,
+ * including a handler posting a nested event. Allocation is read from the per-thread counters of the
+ * HotSpot {@code ThreadMXBean}; in steady state it should stay at 0 bytes/post.
+ * Not a unit test: run its {@code main} method from the test classpath.
+ *
+ * @date 2026-10-18
+ */
+public final class EventBusPostBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int POSTS = 5000000;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        EventBus bus = new EventBus("benchmark");
+        Listener listener = new Listener(bus);
+        bus.register(listener);
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < POSTS; i++) {
+                bus.post(EVENTS[i & (EVENTS.length - 1)]);
+            }
+            long time = System.nanoTime() - start;
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            System.out.println(String.format("round %2d: %6.2f ns/post, %6.2f bytes/post",
+                round, (double) time / POSTS, (double) allocated / POSTS));
+        }
+        System.out.println("checksum " + listener.count);
+    }
+
+    private static final String[] EVENTS = new String[1024];
+
+    static {
+        for (int i = 0; i < EVENTS.length; i++) {
+            EVENTS[i] = "event-" + i;
+        }
+    }
+
+    public static final class Listener {
+        final EventBus bus;
+        long count;
+
+        Listener(EventBus bus) {
+            this.bus = bus;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onEvent(String event) {
+            count += event.hashCode();
+            if ((count & 7) == 0) {
+                bus.post(Integer.valueOf(event.length()));
+            }
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onNested(Integer event) {
+            count += event;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2011 Ovea <dev@ovea.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ovea.tajin.framework.async.guava;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures the cost of one handler dispatch through the reflective and the generated
+ * ({@code LambdaMetafactory}) invokers. Not a unit test: run its {@code main} method from the test classpath.
+ *
+ * @date 2026-10-18
+ */
+public final class HandlerInvokerBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int DISPATCHES = 10000000;
+
+    public static void main(String[] args) throws Throwable {
+        Listener listener = new Listener();
+        Method method = Listener.class.getMethod("onEvent", String.class);
+        method.setAccessible(true);
+        HandlerInvoker reflective = HandlerInvoker.reflective(listener, method);
+        HandlerInvoker direct = HandlerInvoker.create(listener, method);
+        System.out.println("invoker: " + direct.getClass().getSimpleName());
+        for (int round = 0; round < ROUNDS; round++) {
+            long r = run(reflective);
+            long d = run(direct);
+            System.out.println(String.format("round %2d: reflective %6.2f ns/dispatch, direct %6.2f ns/dispatch",
+                round, (double) r / DISPATCHES, (double) d / DISPATCHES));
+        }
+        System.out.println("checksum " + listener.count);
+    }
+
+    private static final String[] EVENTS = new String[1024];
+
+    static {
+        for (int i = 0; i < EVENTS.length; i++) {
+            EVENTS[i] = "event-" + i;
+        }
+    }
+
+    private static long run(HandlerInvoker invoker) throws Throwable {
+        long start = System.nanoTime();
+        for (int i = 0; i < DISPATCHES; i++) {
+            invoker.invoke(EVENTS[i & (EVENTS.length - 1)]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static final class Listener {
+        long count;
+
+        public void onEvent(String event) {
+            count += event.hashCode();
+        }
+    }
+
+}